@@ -0,0 +1,270 @@
+/*
+ * Program: MazeBenchmark
+ *
+ * This program times each stage of solving a maze on mazes made
+ * by MazeGenerator, so changes to the solver can be compared from
+ * one version to the next. The stages are timed separately:
+ *
+ * parse: reading a file of maze lines with MazeReader
+ * construct: building a Maze from an ArrayList<Integer>, which
+ * also solves it
+ * solve: solveMaze() on a Maze already built
+ * context: loading the maze into a SolverContext, solving it and
+ * writing the directions, in the same context each time, the way
+ * MazeJob solves a file of mazes
+ * maze: writing the drawing of the maze with writeMaze()
+ * solution: writing the directions with writeSolution()
+ *
+ * Each stage runs for a few warmup iterations, to let the JIT
+ * compile it, and then for the measured iterations. For each, the
+ * throughput in operations per second and the bytes allocated per
+ * operation are printed, and can also be saved as JSON to compare
+ * between runs.
+ *
+ * With -maxalloc, the context stage also checks that solving a
+ * maze in a context already grown to fit it allocates next to
+ * nothing: if it allocates more than that many bytes per maze, the
+ * program says so and exits with status 1.
+ *
+ * Flags, each taking a comma separated list or a single value:
+ * -sizes: maze sizes, each one both the height and the width
+ * (10,100,1000,4096)
+ * -densities: chances of a mine on each space (0,0.1,0.3)
+ * -shapes: open, braid, maze and/or corridor (all of them)
+ * -benchmarks: which stages to time (all of them)
+ * -engine: the search engine for solve and construct (dijkstra)
+ * -warmup: warmup iterations (2)
+ * -iterations: measured iterations (3)
+ * -time: milliseconds per iteration (200)
+ * -seed: the seed for MazeGenerator (1)
+ * -json: a file to save the results to
+ * -maxalloc: the most bytes per maze the context stage may allocate
+ *
+ * The biggest mazes need a large heap, e.g. java -Xmx4g.
+ *
+ */
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+public class MazeBenchmark {
+
+    // Op is one timed operation. It gives back how many operations it did,
+    // which is more than one when it goes through a whole file.
+    private interface Op {
+        long run() throws IOException;
+    }
+
+    // the results of the operations are added in here, so the JIT can't
+    // throw the work away as unused.
+    private static volatile long sink;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static int warmup = 2, iterations = 3;
+    private static long time = 200;
+    // the most bytes per maze the context stage may allocate, and whether
+    // any run of it allocated more.
+    private static double limit = Double.POSITIVE_INFINITY;
+    private static boolean over;
+    private static final List<String> results = new ArrayList<>();
+
+    public static void main(String[] args) throws IOException {
+        CommandLineArgs command = new CommandLineArgs();
+        String[] sizes = option(command, args, "-sizes", "10,100,1000,4096");
+        String[] densities = option(command, args, "-densities", "0,0.1,0.3");
+        String[] shapes = option(command, args, "-shapes", "open,braid,maze,corridor");
+        List<String> benchmarks = Arrays.asList(option(command, args, "-benchmarks",
+                "parse,construct,solve,context,maze,solution"));
+        SearchEngine engine = command.engine(args);
+        warmup = Integer.parseInt(option(command, args, "-warmup", "2")[0]);
+        iterations = Integer.parseInt(option(command, args, "-iterations", "3")[0]);
+        time = Long.parseLong(option(command, args, "-time", "200")[0]);
+        long seed = Long.parseLong(option(command, args, "-seed", "1")[0]);
+        String json = command.value(args, "-json");
+        String maxAlloc = command.value(args, "-maxalloc");
+        if(maxAlloc != null){
+            limit = Double.parseDouble(maxAlloc);
+        }
+
+        System.out.printf("%-10s %6s %8s %-9s %16s %14s%n",
+                "benchmark", "size", "density", "shape", "ops/s", "B/op");
+        for(String size: sizes){
+            int side = Integer.parseInt(size);
+            for(String density: densities){
+                for(String shape: shapes){
+                    MazeGenerator.Shape kind = MazeGenerator.Shape.valueOf(shape.toUpperCase(Locale.ROOT));
+                    int[] nums = MazeGenerator.generate(side, side, Double.parseDouble(density), kind, seed);
+                    String params = String.format(Locale.ROOT,
+                            "\"size\": \"%d\", \"density\": \"%s\", \"shape\": \"%s\", \"engine\": \"%s\"",
+                            side, density, shape, engine.flag());
+                    String label = String.format(Locale.ROOT, "%6d %8s %-9s", side, density, shape);
+                    run(benchmarks, nums, engine, label, params);
+                }
+            }
+        }
+
+        if(json != null){
+            try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(json)))) {
+                out.println("[");
+                out.println(String.join(",\n", results));
+                out.println("]");
+            }
+        }
+        if(over){
+            System.err.println("The context stage allocated more than " + maxAlloc + " bytes per maze");
+            System.exit(1);
+        }
+    }
+
+    // run() times each chosen stage on one maze.
+    private static void run(List<String> benchmarks, int[] nums, SearchEngine engine,
+                            String label, String params) throws IOException {
+        ArrayList<Integer> list = new ArrayList<>(nums.length);
+        for(int num: nums){
+            list.add(num);
+        }
+        Maze maze = new Maze(list);
+
+        if(benchmarks.contains("parse")){
+            // fill a file with copies of the maze line, about a million
+            // spaces' worth, and read the whole file each time.
+            File file = File.createTempFile("mazes", ".txt");
+            file.deleteOnExit();
+            int lines = Math.max(1, 1000000 / nums.length);
+            try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+                String line = MazeGenerator.format(nums);
+                for(int i = 0; i < lines; i++){
+                    out.println(line);
+                }
+            }
+            measure("parse", label, params, () -> {
+                long count = 0;
+                try (MazeReader reader = new MazeReader(file)) {
+                    while(reader.next()){
+                        sink += reader.values()[reader.count() - 1];
+                        count++;
+                    }
+                }
+                return count;
+            });
+            file.delete();
+        }
+        if(benchmarks.contains("construct")){
+            measure("construct", label, params, () -> {
+                sink += new Maze(list).getExpanded();
+                return 1;
+            });
+        }
+        if(benchmarks.contains("solve")){
+            measure("solve", label, params, () -> {
+                maze.solveMaze(engine);
+                sink += maze.getExpanded();
+                return 1;
+            });
+        }
+        if(benchmarks.contains("context")){
+            SolverContext context = new SolverContext();
+            StringBuilder out = new StringBuilder();
+            double perOp = measure("context", label, params, () -> {
+                context.load(nums, nums.length);
+                context.solve(engine);
+                context.write(out, false);
+                sink += out.length();
+                out.setLength(0);
+                return 1;
+            });
+            if(perOp > limit){
+                over = true;
+            }
+        }
+        if(benchmarks.contains("maze")){
+            measure("maze", label, params, () -> {
+                StringBuilder out = new StringBuilder();
+                maze.writeMaze(out);
+                sink += out.length();
+                return 1;
+            });
+        }
+        if(benchmarks.contains("solution")){
+            measure("solution", label, params, () -> {
+                StringBuilder out = new StringBuilder();
+                maze.writeSolution(out);
+                sink += out.length();
+                return 1;
+            });
+        }
+    }
+
+    // measure() runs an operation through its warmup and measured
+    // iterations, and prints and saves the results.
+    //
+    // Returns:
+    // double, the bytes allocated per operation.
+    private static double measure(String name, String label, String params, Op op) throws IOException {
+        for(int i = 0; i < warmup; i++){
+            iterate(op);
+        }
+        double[] scores = new double[iterations];
+        long allocated = 0;
+        long ops = 0;
+        long thread = Thread.currentThread().getId();
+        for(int i = 0; i < iterations; i++){
+            long before = THREADS.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            long count = iterate(op);
+            long elapsed = System.nanoTime() - start;
+            allocated += THREADS.getThreadAllocatedBytes(thread) - before;
+            ops += count;
+            scores[i] = count * 1e9 / elapsed;
+        }
+
+        double mean = 0;
+        for(double score: scores){
+            mean += score;
+        }
+        mean /= iterations;
+        double spread = 0;
+        for(double score: scores){
+            spread += (score - mean) * (score - mean);
+        }
+        spread = iterations > 1 ? Math.sqrt(spread / (iterations - 1)) : 0;
+        double perOp = (double) allocated / ops;
+
+        System.out.printf(Locale.ROOT, "%-10s %s %16.3f %14.1f%n", name, label, mean, perOp);
+        results.add(String.format(Locale.ROOT,
+                "  {\"benchmark\": \"%s\", \"mode\": \"thrpt\", \"params\": {%s},%n"
+                        + "   \"primaryMetric\": {\"score\": %.3f, \"scoreStdev\": %.3f, \"scoreUnit\": \"ops/s\"},%n"
+                        + "   \"secondaryMetrics\": {\"alloc.norm\": {\"score\": %.1f, \"scoreUnit\": \"B/op\"}}}",
+                name, params, mean, spread, perOp));
+        return perOp;
+    }
+
+    // iterate() runs an operation over and over for one iteration's time.
+    //
+    // Returns:
+    // long, the count of operations done.
+    private static long iterate(Op op) throws IOException {
+        long end = System.nanoTime() + time * 1000000;
+        long count = 0;
+        do {
+            count += op.run();
+        } while(System.nanoTime() < end);
+        return count;
+    }
+
+    // option() gives the comma separated values of a flag, or its default.
+    private static String[] option(CommandLineArgs command, String[] args, String flag, String fallback){
+        String value = command.value(args, flag);
+        return (value == null ? fallback : value).split(",");
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Class: MazeGenerator
+ *
+ * This class makes mazes for benchmarking, encoded the same way as
+ * the lines of mazes.txt: the height, the width, and then one code
+ * per space using the GridSpace bit codes. The same seed always
+ * makes the same maze.
+ *
+ * The start is the top left space and the end is the bottom right
+ * one. Mines are scattered over the other spaces at the given
+ * density. The shape decides which doors are open:
+ *
+ * OPEN: every door between neighboring spaces is open.
+ * BRAID: a perfect maze with a tenth of its walls knocked through,
+ * so it has loops.
+ * MAZE: a perfect maze, with exactly one route between any two
+ * spaces, made of long winding corridors.
+ * CORRIDOR: a single corridor snaking back and forth across every
+ * row, the longest path the grid can hold.
+ *
+ */
+
+import java.util.Random;
+
+public class MazeGenerator
+{
+    public enum Shape { OPEN, BRAID, MAZE, CORRIDOR }
+
+    // Parameters:
+    // height: the number of rows
+    // width: the number of columns
+    // density: the chance of each space having a mine, from 0 to 1
+    // shape: which doors to open
+    // seed: the seed for the random choices
+    //
+    // Returns:
+    // int[], the height, width and codes of the spaces.
+    public static int[] generate(int height, int width, double density, Shape shape, long seed){
+        Random random = new Random(seed);
+        int[] nums = new int[height * width + 2];
+        nums[0] = height;
+        nums[1] = width;
+        switch(shape){
+            case OPEN:
+                for(int row = 0; row < height; row++){
+                    for(int col = 0; col < width; col++){
+                        if(col + 1 < width){
+                            open(nums, width, row, col, GridSpace.RIGHT);
+                        }
+                        if(row + 1 < height){
+                            open(nums, width, row, col, GridSpace.DOWN);
+                        }
+                    }
+                }
+                break;
+            case CORRIDOR:
+                for(int row = 0; row < height; row++){
+                    for(int col = 0; col + 1 < width; col++){
+                        open(nums, width, row, col, GridSpace.RIGHT);
+                    }
+                    // join each row to the next at alternating ends.
+                    if(row + 1 < height){
+                        open(nums, width, row, row % 2 == 0 ? width - 1 : 0, GridSpace.DOWN);
+                    }
+                }
+                break;
+            default:
+                carve(nums, height, width, random);
+                if(shape == Shape.BRAID){
+                    for(int i = height * width / 10; i > 0; i--){
+                        int row = random.nextInt(height);
+                        int col = random.nextInt(width);
+                        if(random.nextBoolean() && col + 1 < width){
+                            open(nums, width, row, col, GridSpace.RIGHT);
+                        }
+                        else if(row + 1 < height){
+                            open(nums, width, row, col, GridSpace.DOWN);
+                        }
+                    }
+                }
+                break;
+        }
+
+        int last = height * width + 1;
+        for(int i = 3; i < last; i++){
+            if(random.nextDouble() < density){
+                nums[i] |= GridSpace.MINE;
+            }
+        }
+        nums[2] |= GridSpace.START;
+        nums[last] |= GridSpace.END;
+        return nums;
+    }
+
+    // carve() opens the doors of a perfect maze, with a depth-first walk
+    // that knocks through to a random unvisited neighbor until it runs out,
+    // then backs up.
+    private static void carve(int[] nums, int height, int width, Random random){
+        boolean[] visited = new boolean[height * width];
+        int[] stack = new int[height * width];
+        int top = 0;
+        stack[top++] = 0;
+        visited[0] = true;
+        int[] choices = new int[4];
+        while(top > 0){
+            int space = stack[top - 1];
+            int row = space / width;
+            int col = space % width;
+            int count = 0;
+            if(row > 0 && !visited[space - width]){
+                choices[count++] = GridSpace.UP;
+            }
+            if(col + 1 < width && !visited[space + 1]){
+                choices[count++] = GridSpace.RIGHT;
+            }
+            if(row + 1 < height && !visited[space + width]){
+                choices[count++] = GridSpace.DOWN;
+            }
+            if(col > 0 && !visited[space - 1]){
+                choices[count++] = GridSpace.LEFT;
+            }
+            if(count == 0){
+                top--;
+                continue;
+            }
+            int dir = choices[random.nextInt(count)];
+            int next = open(nums, width, row, col, dir);
+            visited[next] = true;
+            stack[top++] = next;
+        }
+    }
+
+    // open() opens the door from a space in a direction, on both sides.
+    //
+    // Returns:
+    // int, the space on the other side of the door.
+    private static int open(int[] nums, int width, int row, int col, int dir){
+        int space = row * width + col;
+        int next;
+        int back;
+        switch(dir){
+            case GridSpace.UP: next = space - width; back = GridSpace.DOWN; break;
+            case GridSpace.DOWN: next = space + width; back = GridSpace.UP; break;
+            case GridSpace.LEFT: next = space - 1; back = GridSpace.RIGHT; break;
+            default: next = space + 1; back = GridSpace.LEFT; break;
+        }
+        nums[space + 2] |= dir;
+        nums[next + 2] |= back;
+        return next;
+    }
+
+    // format() writes a maze as a line of mazes.txt.
+    //
+    // Parameters:
+    // nums: the height, width and codes of the spaces.
+    //
+    // Returns:
+    // String, the line, without its line break.
+    public static String format(int[] nums){
+        StringBuilder line = new StringBuilder(nums.length * 3);
+        line.append('(').append(nums[0]).append(',').append(nums[1]).append(")-[");
+        for(int i = 2; i < nums.length; i++){
+            if(i > 2){
+                line.append(',');
+            }
+            line.append(nums[i]);
+        }
+        return line.append(']').toString();
+    }
+}
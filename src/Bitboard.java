@@ -0,0 +1,362 @@
+/*
+ * Class: Bitboard
+ *
+ * This class packs a maze into bitboards: for each direction, one
+ * bit per space telling whether it has a door that way to another
+ * space, and one bit per space telling whether it has a mine. Each
+ * row is a run of 64-bit words, the space in column c being bit
+ * c % 64 of word c / 64, so 64 spaces of a row are worked on at
+ * once, with a few shifts and masks, instead of one at a time.
+ *
+ * reachable() floods the maze from the start. Within a row, the
+ * spaces reached spread right and then left through the doors in
+ * six shifts a word (a Kogge-Stone fill), the reach carried from
+ * one word into the next; a row that grows then passes its reach
+ * down and up to the rows next to it, until no row grows. The flood
+ * only steps onto a mine once nothing more can be reached without
+ * one, so the spaces reached while hitting no more than a number of
+ * mines come out one mine at a time; a maze whose end isn't among
+ * them for the mines the player can survive has no path at all.
+ *
+ * distance() goes out from the start one distance at a time, as
+ * MazeSearch's Dijkstra does, but moves the whole frontier at each
+ * lives left a step at once, row by row. It gives the length of the
+ * shortest safe path and the most lives it can leave, but not the
+ * path itself. It pays off when rows are only a word or two wide;
+ * on wider mazes, whose frontier is spread thin over many words,
+ * it does no better than stepping a space at a time.
+ *
+ */
+
+import java.util.Arrays;
+
+public class Bitboard
+{
+    private static final int LIVES = GridArray.LIVES;
+
+    public final int height, width;
+    // the count of words each row takes.
+    private final int words;
+    // the spaces with a door each way that leads to another space, and the
+    // spaces with mines.
+    private final long[] up, right, down, left, mines;
+    private final int start, end;
+    private int lives;
+
+    // Parameters:
+    // grid: the maze to pack.
+    public Bitboard(GridArray grid){
+        height = grid.height;
+        width = grid.width;
+        words = (width + 63) >>> 6;
+        int size = height * words;
+        up = new long[size];
+        right = new long[size];
+        down = new long[size];
+        left = new long[size];
+        mines = new long[size];
+        // the bits of each word are gathered without branching, and doors that
+        // lead off the grid are dropped afterwards.
+        for(int row = 0; row < height; row++){
+            for(int w = 0; w < words; w++){
+                long toUp = 0, toRight = 0, toDown = 0, toLeft = 0, mined = 0;
+                int first = row * width + (w << 6);
+                int count = Math.min(64, width - (w << 6));
+                for(int b = 0; b < count; b++){
+                    long code = grid.cells[first + b];
+                    toUp |= (code & GridSpace.UP) << b;
+                    toRight |= (code >>> 1 & 1) << b;
+                    toDown |= (code >>> 2 & 1) << b;
+                    toLeft |= (code >>> 3 & 1) << b;
+                    mined |= (code >>> 6 & 1) << b;
+                }
+                int at = row * words + w;
+                up[at] = row > 0 ? toUp : 0;
+                right[at] = toRight;
+                down[at] = row < height - 1 ? toDown : 0;
+                left[at] = toLeft;
+                mines[at] = mined;
+            }
+            left[row * words] &= ~1L;
+            right[row * words + (width - 1 >>> 6)] &= ~(1L << width - 1);
+        }
+        start = grid.start;
+        end = grid.end;
+    }
+
+    // reaches() tells whether the end can be reached from the start while
+    // hitting no more than a number of mines. A mine on the start isn't hit.
+    public boolean reaches(int hits){
+        return has(flood(hits, true), end);
+    }
+
+    // reachable() gives the spaces that can be reached from the start while
+    // hitting no more than a number of mines.
+    //
+    // Returns:
+    // boolean[], whether each space, numbered row * width + col, is reached.
+    public boolean[] reachable(int hits){
+        long[] set = flood(hits, false);
+        boolean[] reached = new boolean[height * width];
+        for(int space = 0; space < reached.length; space++){
+            reached[space] = has(set, space);
+        }
+        return reached;
+    }
+
+    // distance() gives the length of the shortest path from the start to the
+    // end that doesn't kill the player, under the standard rules, or -1 if
+    // there is none. lives() then gives the most lives it can leave.
+    public int distance(){
+        int size = height * words;
+        // the frontier at each lives left, the next one, and the spaces
+        // reached so far with at least each lives left.
+        long[][] frontier = new long[LIVES + 1][size];
+        long[][] next = new long[LIVES + 1][size];
+        long[][] reached = new long[LIVES + 1][size];
+        long[] moved = new long[size];
+        int first = start / width * words + (start % width >>> 6);
+        long bit = 1L << start % width;
+        frontier[LIVES][first] = bit;
+        for(int left = 1; left <= LIVES; left++){
+            reached[left][first] = bit;
+        }
+        // only the rows from low to high hold any of the frontier.
+        int low = start / width, high = low;
+        lives = 0;
+        for(int dist = 0; ; dist++){
+            for(int left = LIVES; left >= 1; left--){
+                if(has(frontier[left], end)){
+                    lives = left;
+                    return dist;
+                }
+            }
+            int from = Math.max(low - 1, 0), to = Math.min(high + 1, height - 1);
+            for(int left = LIVES; left >= 1; left--){
+                Arrays.fill(moved, from * words, (to + 1) * words, 0L);
+                move(frontier[left], moved, low, high);
+                for(int at = from * words; at < (to + 1) * words; at++){
+                    next[left][at] |= moved[at] & ~mines[at];
+                    if(left > 1){
+                        next[left - 1][at] |= moved[at] & mines[at];
+                    }
+                }
+            }
+            // keep each space only at the most lives it's reached with, and only
+            // if it hasn't been reached with as many before.
+            int newLow = height, newHigh = -1;
+            for(int left = LIVES; left >= 1; left--){
+                for(int row = from; row <= to; row++){
+                    for(int at = row * words; at < (row + 1) * words; at++){
+                        long fresh = next[left][at] & ~reached[left][at];
+                        next[left][at] = fresh;
+                        if(fresh != 0){
+                            for(int fewer = 1; fewer <= left; fewer++){
+                                reached[fewer][at] |= fresh;
+                            }
+                            newLow = Math.min(newLow, row);
+                            newHigh = Math.max(newHigh, row);
+                        }
+                    }
+                }
+                Arrays.fill(frontier[left], Math.max(low, 0) * words, (high + 1) * words, 0L);
+            }
+            if(newHigh < 0){
+                return -1;
+            }
+            long[][] swap = frontier;
+            frontier = next;
+            next = swap;
+            low = newLow;
+            high = newHigh;
+        }
+    }
+
+    // lives() gives the most lives the path distance() found can leave.
+    public int lives(){
+        return lives;
+    }
+
+    // flood() floods the maze from the start, a mine more at a time, up to a
+    // number of mines, stopping early if asked to once the end is reached.
+    private long[] flood(int hits, boolean toEnd){
+        long[] set = new long[height * words];
+        // the flood only spreads into spaces without mines; mines are stepped
+        // onto one at a time, below.
+        long[] clear = new long[set.length];
+        for(int at = 0; at < set.length; at++){
+            clear[at] = ~mines[at];
+        }
+        // the words of each row that have grown since the row was last spread,
+        // from low to high; high is -1 if none have.
+        int[] low = new int[height], high = new int[height];
+        Arrays.fill(low, words);
+        Arrays.fill(high, -1);
+        IntQueue rows = new IntQueue(16);
+        int row = start / width;
+        int col = start % width;
+        set[row * words + (col >>> 6)] |= 1L << col;
+        grew(row, col >>> 6, low, high, rows);
+        spread(set, clear, low, high, rows);
+        long[] onto = new long[set.length];
+        for(int hit = 0; hit < hits && !(toEnd && has(set, end)); hit++){
+            Arrays.fill(onto, 0L);
+            move(set, onto, 0, height - 1);
+            for(row = 0; row < height; row++){
+                for(int w = 0; w < words; w++){
+                    int at = row * words + w;
+                    long add = onto[at] & mines[at] & ~set[at];
+                    if(add != 0){
+                        set[at] |= add;
+                        grew(row, w, low, high, rows);
+                    }
+                }
+            }
+            // no more mines can be reached, so more hits reach nothing new.
+            if(rows.isEmpty()){
+                break;
+            }
+            spread(set, clear, low, high, rows);
+        }
+        return set;
+    }
+
+    // grew() notes that a word of a row has grown, and queues the row to be
+    // spread if it isn't already.
+    private void grew(int row, int w, int[] low, int[] high, IntQueue rows){
+        if(high[row] < 0){
+            rows.add(row);
+        }
+        low[row] = Math.min(low[row], w);
+        high[row] = Math.max(high[row], w);
+    }
+
+    // spread() spreads the spaces reached through the doors, into spaces of
+    // open, until no row grows, starting from the rows queued.
+    private void spread(long[] set, long[] open, int[] low, int[] high, IntQueue rows){
+        while(!rows.isEmpty()){
+            int row = rows.remove();
+            int base = row * words;
+            int from = low[row], to = high[row];
+            low[row] = words;
+            high[row] = -1;
+
+            // spread right from the words that grew, and on into the words
+            // after them for as long as the reach carries over.
+            long carry = 0;
+            int w = from;
+            for(; w < words; w++){
+                int at = base + w;
+                long seed = carry & open[at];
+                if(w > to && (seed & ~set[at]) == 0){
+                    break;
+                }
+                long reach = toHigh(set[at] | seed, open[at] & right[at] << 1);
+                set[at] = reach;
+                carry = (reach & right[at]) >>> 63;
+            }
+            to = w - 1;
+            // then left, the same way.
+            carry = 0;
+            for(w = to; w >= 0; w--){
+                int at = base + w;
+                long seed = carry << 63 & open[at];
+                if(w < from && (seed & ~set[at]) == 0){
+                    break;
+                }
+                long reach = toLow(set[at] | seed, open[at] & left[at] >>> 1);
+                set[at] = reach;
+                carry = reach & left[at] & 1L;
+            }
+            from = w + 1;
+
+            // only the words that could have grown need to be passed on.
+            if(row > 0){
+                pass(set, open, row, row - 1, up, from, to, low, high, rows);
+            }
+            if(row < height - 1){
+                pass(set, open, row, row + 1, down, from, to, low, high, rows);
+            }
+        }
+    }
+
+    // pass() passes the spaces reached in words from to to of a row through
+    // its doors one way into the row next to it.
+    private void pass(long[] set, long[] open, int row, int into, long[] doors, int from, int to,
+                      int[] low, int[] high, IntQueue rows){
+        int source = row * words, target = into * words;
+        for(int w = from; w <= to; w++){
+            long add = set[source + w] & doors[source + w] & open[target + w] & ~set[target + w];
+            if(add != 0){
+                set[target + w] |= add;
+                grew(into, w, low, high, rows);
+            }
+        }
+    }
+
+    // move() adds to moved every space one step through a door from a space
+    // in set, for the rows of set from low to high.
+    private void move(long[] set, long[] moved, int low, int high){
+        for(int row = low; row <= high; row++){
+            int base = row * words;
+            for(int w = 0; w < words; w++){
+                int at = base + w;
+                long here = set[at];
+                if(here == 0){
+                    continue;
+                }
+                moved[at] |= (here & right[at]) << 1 | (here & left[at]) >>> 1;
+                if(w + 1 < words){
+                    moved[at + 1] |= (here & right[at]) >>> 63;
+                }
+                if(w > 0){
+                    moved[at - 1] |= (here & left[at]) << 63;
+                }
+                if(row > 0){
+                    moved[at - words] |= here & up[at];
+                }
+                if(row < height - 1){
+                    moved[at + words] |= here & down[at];
+                }
+            }
+        }
+    }
+
+    // has() tells whether a space is in a set.
+    private boolean has(long[] set, int space){
+        int row = space / width, col = space % width;
+        return (set[row * words + (col >>> 6)] & 1L << col) != 0;
+    }
+
+    // toHigh() spreads the bits of reach up through the bits of through, each
+    // bit of which is set if the bit below it can move into it.
+    private static long toHigh(long reach, long through){
+        reach |= through & reach << 1;
+        through &= through << 1;
+        reach |= through & reach << 2;
+        through &= through << 2;
+        reach |= through & reach << 4;
+        through &= through << 4;
+        reach |= through & reach << 8;
+        through &= through << 8;
+        reach |= through & reach << 16;
+        through &= through << 16;
+        return reach | through & reach << 32;
+    }
+
+    // toLow() spreads the bits of reach down through the bits of through, each
+    // bit of which is set if the bit above it can move into it.
+    private static long toLow(long reach, long through){
+        reach |= through & reach >>> 1;
+        through &= through >>> 1;
+        reach |= through & reach >>> 2;
+        through &= through >>> 2;
+        reach |= through & reach >>> 4;
+        through &= through >>> 4;
+        reach |= through & reach >>> 8;
+        through &= through >>> 8;
+        reach |= through & reach >>> 16;
+        through &= through >>> 16;
+        return reach | through & reach >>> 32;
+    }
+}
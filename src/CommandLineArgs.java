@@ -5,7 +5,10 @@
  *
  * This class parses command line arguments for this program.
  * The user can use flag -extra to request extra output beyond
- * just the solution to the mazes.
+ * just the solution to the mazes, -threads N to solve the
+ * mazes on N threads at once, -engine NAME to pick the
+ * search algorithm, and -lives N, -damage N and -minecost N to
+ * change the rules the mazes are solved under.
  *
  */
 
@@ -18,11 +21,22 @@ public class CommandLineArgs {
     // Returns:
     // boolean, true if -extra flag was specified.
     public boolean flagset(String[] args){
+        return flagset(args, "-extra");
+    }
+
+    // Parameters:
+    // args: string array of command line arguments,
+    // passed here from main function of the program.
+    // flag: the flag to look for.
+    //
+    // Returns:
+    // boolean, true if the flag was specified.
+    public boolean flagset(String[] args, String flag){
         // if there are any arguments, check each to see if it matches
-        // the extra flag, and if so, return true.
+        // the flag, and if so, return true.
         if(args.length != 0){
             for(String argument: args){
-                if(argument.equals("-extra")){
+                if(argument.equals(flag)){
                     return true;
                 }
             }
@@ -30,4 +44,101 @@ public class CommandLineArgs {
         // otherwise return false.
         return false;
     }
+
+    // Parameters:
+    // args: string array of command line arguments,
+    // passed here from main function of the program.
+    // flag: the flag to look for.
+    //
+    // Returns:
+    // String, the argument following the flag, or null if the
+    // flag was not specified or has nothing after it.
+    public String value(String[] args, String flag){
+        for(int i = 0; i < args.length - 1; i++){
+            if(args[i].equals(flag)){
+                return args[i + 1];
+            }
+        }
+        return null;
+    }
+
+    // Parameters:
+    // args: string array of command line arguments,
+    // passed here from main function of the program.
+    //
+    // Returns:
+    // int, the number of threads given with the -threads flag,
+    // or 1 if the flag was not specified.
+    public int threads(String[] args){
+        String count = value(args, "-threads");
+        if(count == null){
+            return 1;
+        }
+        // a thread count that is not a positive number is an error.
+        int threads = Integer.parseInt(count);
+        if(threads < 1){
+            throw new IllegalArgumentException("-threads must be at least 1: " + count);
+        }
+        return threads;
+    }
+
+    // Parameters:
+    // args: string array of command line arguments,
+    // passed here from main function of the program.
+    //
+    // Returns:
+    // SearchEngine, the engine named with the -engine flag,
+    // or Dijkstra's algorithm if the flag was not specified.
+    public SearchEngine engine(String[] args){
+        String name = value(args, "-engine");
+        if(name == null){
+            return SearchEngine.DIJKSTRA;
+        }
+        return SearchEngine.fromFlag(name);
+    }
+
+    // Parameters:
+    // args: string array of command line arguments,
+    // passed here from main function of the program.
+    //
+    // Returns:
+    // MazeRules, the rules given with the -lives, -damage and -minecost
+    // flags, each one standard if its flag was not specified.
+    public MazeRules rules(String[] args){
+        String lives = value(args, "-lives");
+        String damage = value(args, "-damage");
+        String mineCost = value(args, "-minecost");
+        if(lives == null && damage == null && mineCost == null){
+            return MazeRules.STANDARD;
+        }
+        return new MazeRules(lives == null ? GridArray.LIVES : Integer.parseInt(lives),
+                damage == null ? 1 : Integer.parseInt(damage), 1,
+                mineCost == null ? 1 : Integer.parseInt(mineCost));
+    }
+
+    // Parameters:
+    // args: string array of command line arguments,
+    // passed here from main function of the program.
+    //
+    // Returns:
+    // int[], the top, left, rows and columns given with the -view flag
+    // as TOP,LEFT,ROWS,COLS, or null if the flag was not specified.
+    public int[] window(String[] args){
+        String text = value(args, "-view");
+        if(text == null){
+            return null;
+        }
+        String[] parts = text.split(",");
+        if(parts.length != 4){
+            throw new IllegalArgumentException("-view must be given as TOP,LEFT,ROWS,COLS: " + text);
+        }
+        int[] window = new int[4];
+        for(int i = 0; i < 4; i++){
+            window[i] = Integer.parseInt(parts[i].trim());
+        }
+        if(window[0] < 0 || window[1] < 0 || window[2] < 1 || window[3] < 1){
+            throw new IllegalArgumentException("-view needs a top and left of at least 0 and a size of at least 1: " + text);
+        }
+        return window;
+    }
 }
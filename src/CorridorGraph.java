@@ -0,0 +1,375 @@
+/*
+ * Class: CorridorGraph
+ *
+ * This class shrinks a maze down to its junctions before searching
+ * it. Most mazes are long corridors one space wide and dead ends,
+ * and a search that steps through every space of them does far more
+ * work than the choices in the maze call for.
+ *
+ * First, dead ends are cut off: a space with only one way in or
+ * out, that isn't the start or the end, can't be on a shortest
+ * path, so it is removed, and its neighbor may then become a dead
+ * end in turn, until whole dead-end branches are gone. Then each
+ * corridor, a run of spaces with exactly two ways in or out, is
+ * joined into one edge between the junctions at its two ends,
+ * carrying its length and the number of mines on it. The start,
+ * the end, and any space with a one-way door are always junctions.
+ *
+ * The search runs over (junction, lives left) states, taken in order
+ * of distance from buckets, one for each distance (Dial's
+ * algorithm). A state only goes on if its junction hasn't already
+ * been reached, at no greater distance, with at least as many lives.
+ * Once the end is reached, the directions through each corridor on
+ * the way are filled back in.
+ *
+ * The path found is as short, with as many lives left, as the one
+ * MazeSearch's Dijkstra finds; among equally good paths, it may
+ * pick a different one. A GridArray keeps its CorridorGraph until
+ * its layout changes, however often it is solved, and a
+ * SolverContext keeps the graphs of recent layouts by their hash,
+ * so a layout that comes up again in the same run is only shrunk
+ * once. Graphs are not saved between runs.
+ *
+ */
+
+import java.util.Arrays;
+
+public class CorridorGraph
+{
+    private static final int LIVES = GridArray.LIVES;
+    private static final byte[] NO_PATH = new byte[0];
+    private static final int[] DIRECTIONS = {GridSpace.UP, GridSpace.LEFT, GridSpace.RIGHT, GridSpace.DOWN};
+
+    private final GridArray grid;
+    // the directions out of each space that lead to a space still in the
+    // maze once dead ends are cut off.
+    private final byte[] ways;
+    // the junction each space is, or -1 if it's in a corridor or cut off.
+    private final int[] junctionOf;
+    private final int[] junctions;
+    // the edges out of junction j are first[j] up to first[j + 1].
+    private final int[] first;
+    private int[] edgeTo, edgeLength, edgeMines;
+    private byte[] edgeDir;
+    private int edges, longest;
+
+    private byte[] path = NO_PATH;
+    private boolean found;
+    private int lives, expanded;
+    private long queueOps;
+
+    // Parameters:
+    // grid: the maze to shrink.
+    public CorridorGraph(GridArray grid){
+        this.grid = grid;
+        int size = grid.size();
+        int width = grid.width;
+        // a space is plain if every door of it has a door back, and no
+        // neighbor has a one-way door into it.
+        boolean[] plain = new boolean[size];
+        Arrays.fill(plain, true);
+        ways = new byte[size];
+        for(int space = 0; space < size; space++){
+            int row = space / width;
+            int col = space - row * width;
+            if(row > 0){
+                link(space, space - width, GridSpace.UP, plain);
+            }
+            if(col > 0){
+                link(space, space - 1, GridSpace.LEFT, plain);
+            }
+            if(col < width - 1){
+                link(space, space + 1, GridSpace.RIGHT, plain);
+            }
+            if(row < grid.height - 1){
+                link(space, space + width, GridSpace.DOWN, plain);
+            }
+        }
+        plain[grid.start] = false;
+        plain[grid.end] = false;
+
+        // cut off dead ends, one space at a time, from their ends inward.
+        boolean[] removed = new boolean[size];
+        IntQueue ends = new IntQueue(16);
+        for(int space = 0; space < size; space++){
+            if(plain[space] && Integer.bitCount(ways[space]) <= 1){
+                ends.add(space);
+                removed[space] = true;
+            }
+        }
+        while(!ends.isEmpty()){
+            int space = ends.remove();
+            for(int dir: DIRECTIONS){
+                if((ways[space] & dir) == 0){
+                    continue;
+                }
+                int next = space + grid.step(dir);
+                ways[next] &= ~opposite(dir);
+                if(plain[next] && !removed[next] && Integer.bitCount(ways[next]) <= 1){
+                    ends.add(next);
+                    removed[next] = true;
+                }
+            }
+        }
+
+        // whatever is left that isn't a plain space in the middle of a
+        // corridor is a junction.
+        junctionOf = new int[size];
+        int count = 0;
+        for(int space = 0; space < size; space++){
+            boolean junction = !removed[space] && (!plain[space] || Integer.bitCount(ways[space]) != 2);
+            junctionOf[space] = junction ? count++ : -1;
+        }
+        junctions = new int[count];
+        for(int space = 0; space < size; space++){
+            if(junctionOf[space] >= 0){
+                junctions[junctionOf[space]] = space;
+            }
+        }
+
+        // follow each way out of each junction down its corridor.
+        first = new int[count + 1];
+        edgeTo = new int[count * 2 + 16];
+        edgeLength = new int[count * 2 + 16];
+        edgeMines = new int[count * 2 + 16];
+        edgeDir = new byte[count * 2 + 16];
+        for(int j = 0; j < count; j++){
+            first[j] = edges;
+            int from = junctions[j];
+            for(int dir: DIRECTIONS){
+                if((ways[from] & dir) == 0){
+                    continue;
+                }
+                int next = from + grid.step(dir);
+                int length = 1;
+                int mines = grid.has(next, GridSpace.MINE) ? 1 : 0;
+                int back = opposite(dir);
+                while(junctionOf[next] < 0){
+                    // a corridor space has just one way on besides the way back.
+                    int out = ways[next] & ~back;
+                    next += grid.step(out);
+                    back = opposite(out);
+                    length++;
+                    if(grid.has(next, GridSpace.MINE)){
+                        mines++;
+                    }
+                }
+                // a corridor that comes back around to where it started
+                // is never worth taking.
+                if(next != from){
+                    edge(junctionOf[next], length, mines, dir);
+                }
+            }
+        }
+        first[count] = edges;
+    }
+
+    // link() notes a door of a space to its neighbor, if it has one, and
+    // whether the neighbor has a door back.
+    private void link(int space, int next, int dir, boolean[] plain){
+        if(!grid.has(space, dir)){
+            return;
+        }
+        ways[space] |= dir;
+        if(!grid.has(next, opposite(dir))){
+            plain[space] = false;
+            plain[next] = false;
+        }
+    }
+
+    // junctions() gives the count of junctions left once the maze is shrunk.
+    public int junctions(){
+        return junctions.length;
+    }
+
+    // edges() gives the count of corridors between the junctions, each way.
+    public int edges(){
+        return edges;
+    }
+
+    // run() searches the junctions for the shortest safe path from the start
+    // to the end, with the most lives left.
+    public void run(){
+        path = NO_PATH;
+        found = false;
+        lives = 0;
+        expanded = 0;
+        queueOps = 0;
+        int count = junctions.length;
+        int[] dist = new int[count * LIVES];
+        int[] via = new int[count * LIVES];
+        byte[] settled = new byte[count];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        // states wait in a bucket for their distance, as in Dial's algorithm;
+        // no corridor is longer than the buckets in the ring, so a bucket is
+        // empty again by the time it's needed for a farther distance.
+        IntQueue[] buckets = new IntQueue[longest + 1];
+        int start = junctionOf[grid.start] * LIVES + LIVES - 1;
+        int end = junctionOf[grid.end];
+        dist[start] = 0;
+        via[start] = -1;
+        buckets[0] = new IntQueue(16);
+        buckets[0].add(start);
+        int waiting = 1;
+        int last = -1;
+        // once the end is reached, the rest of its distance is finished so
+        // that the state with the most lives left among the nearest is kept.
+        for(int at = 0; waiting > 0 && last < 0; at++){
+            IntQueue bucket = buckets[at % buckets.length];
+            while(bucket != null && !bucket.isEmpty()){
+                int state = bucket.remove();
+                waiting--;
+                int junction = state / LIVES;
+                int left = state % LIVES + 1;
+                // skip states that have since been reached sooner, and states
+                // whose junction was reached with at least as many lives.
+                if(dist[state] != at || left <= settled[junction]){
+                    continue;
+                }
+                settled[junction] = (byte) left;
+                expanded++;
+                if(junction == end){
+                    last = state;
+                    continue;
+                }
+                for(int e = first[junction]; e < first[junction + 1]; e++){
+                    int to = edgeTo[e];
+                    int nextLeft = left - edgeMines[e];
+                    if(nextLeft < 1 || nextLeft <= settled[to]){
+                        continue;
+                    }
+                    int nextState = to * LIVES + nextLeft - 1;
+                    int nextDist = at + edgeLength[e];
+                    if(nextDist < dist[nextState]){
+                        dist[nextState] = nextDist;
+                        via[nextState] = e;
+                        int slot = nextDist % buckets.length;
+                        if(buckets[slot] == null){
+                            buckets[slot] = new IntQueue(16);
+                        }
+                        buckets[slot].add(nextState);
+                        waiting++;
+                    }
+                }
+            }
+        }
+        for(IntQueue bucket: buckets){
+            if(bucket != null){
+                queueOps += bucket.operations();
+            }
+        }
+        if(last < 0){
+            return;
+        }
+        found = true;
+        lives = last % LIVES + 1;
+        path = unfold(last, dist[last], via);
+    }
+
+    // found() tells whether the last search found a path.
+    public boolean found(){
+        return found;
+    }
+
+    // path() gives the directions of the path found, from start to end, as
+    // GridSpace direction codes. It is empty if there is no path.
+    public byte[] path(){
+        return path;
+    }
+
+    // lives() gives the lives left at the end of the path found.
+    public int lives(){
+        return lives;
+    }
+
+    // expanded() gives the count of junction states the last search expanded.
+    public int expanded(){
+        return expanded;
+    }
+
+    // queueOps() gives the count of states the last search put in and took
+    // out of its buckets.
+    public long queueOps(){
+        return queueOps;
+    }
+
+    // unfold() follows the edges back from the end to the start, and fills
+    // in the directions through each corridor along the way.
+    //
+    // Parameters:
+    // state: the end's state
+    // length: the length of the path
+    // via: the edge each state was reached by.
+    //
+    // Returns:
+    // byte[], the directions from the start to the end.
+    private byte[] unfold(int state, int length, int[] via){
+        byte[] dirs = new byte[length];
+        int at = length;
+        while(via[state] >= 0){
+            int e = via[state];
+            // the edge starts at the junction it's listed under.
+            int from = owner(e);
+            at -= edgeLength[e];
+            walk(junctions[from], edgeDir[e], dirs, at);
+            state = from * LIVES + state % LIVES + edgeMines[e];
+        }
+        return dirs;
+    }
+
+    // walk() writes the directions down a corridor from a junction.
+    private void walk(int space, int dir, byte[] dirs, int at){
+        dirs[at++] = (byte) dir;
+        space += grid.step(dir);
+        int back = opposite(dir);
+        while(junctionOf[space] < 0){
+            int out = ways[space] & ~back;
+            dirs[at++] = (byte) out;
+            space += grid.step(out);
+            back = opposite(out);
+        }
+    }
+
+    // owner() gives the junction an edge goes out of.
+    private int owner(int e){
+        int low = 0, high = junctions.length - 1;
+        while(low < high){
+            int middle = (low + high + 1) >>> 1;
+            if(first[middle] <= e){
+                low = middle;
+            }
+            else{
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    // edge() adds an edge out of the junction being followed, growing the
+    // arrays if they're full.
+    private void edge(int to, int length, int mines, int dir){
+        if(edges == edgeTo.length){
+            int grown = edges * 2;
+            edgeTo = Arrays.copyOf(edgeTo, grown);
+            edgeLength = Arrays.copyOf(edgeLength, grown);
+            edgeMines = Arrays.copyOf(edgeMines, grown);
+            edgeDir = Arrays.copyOf(edgeDir, grown);
+        }
+        edgeTo[edges] = to;
+        edgeLength[edges] = length;
+        edgeMines[edges] = mines;
+        edgeDir[edges] = (byte) dir;
+        edges++;
+        longest = Math.max(longest, length);
+    }
+
+    // opposite() gives the direction opposite another.
+    private static int opposite(int dir){
+        switch(dir){
+            case GridSpace.UP: return GridSpace.DOWN;
+            case GridSpace.DOWN: return GridSpace.UP;
+            case GridSpace.LEFT: return GridSpace.RIGHT;
+            default: return GridSpace.LEFT;
+        }
+    }
+}
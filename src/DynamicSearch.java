@@ -0,0 +1,339 @@
+/*
+ * Class: DynamicSearch
+ *
+ * This class keeps the shortest safe path through a maze up to date
+ * as the maze is edited, one wall, mine, start or end at a time,
+ * without searching the whole maze again after each edit. It is a
+ * Lifelong Planning A* (LPA*) search, with no estimate, so it
+ * grows out from the start like Dijkstra's algorithm.
+ *
+ * The search is over (space, mines used) states. Each state keeps
+ * its distance from the start, g, and the distance its neighbors
+ * say it should have, rhs: the least of their distances plus the
+ * step from them. A state where the two differ is out of date, and
+ * waits in an IndexedHeap. An edit only changes the rhs of the
+ * states next to it; searching then only goes through the states
+ * whose distances actually change, along with those no farther from
+ * the start than the end, rather than the whole maze.
+ *
+ * Distances are counted LIVES to a step, and the end is joined to
+ * one more state, the goal, by a step costing one more than the
+ * mines used. Since fewer mines than LIVES are ever used, that
+ * never makes up for a step, so the shortest way to the goal is the
+ * shortest path to the end, with the most lives left among the
+ * shortest, just as MazeSearch finds. The step to the goal costs at
+ * least 1, as LPA* needs every step to.
+ *
+ * The directions come out just as a fresh solve's do. Among the
+ * paths as short, with as many lives, MazeSearch's Dijkstra keeps
+ * the one that is first when their directions are compared from the
+ * start, up before left before right before down, since that is the
+ * order it queues states in; unless the first solver's order picks
+ * one just as good, which it then keeps instead. path() marks the
+ * states on those paths, going back from the end along the
+ * distances, then walks forward from the start, always taking the
+ * first direction that stays on them, and asks MazeSearch for the
+ * first solver's path. Rebuilding the directions costs the states
+ * on the shortest paths, and a pass over the spaces nearer the
+ * start than the end.
+ *
+ */
+
+import java.util.Arrays;
+
+public class DynamicSearch
+{
+    private static final int LIVES = GridArray.LIVES;
+    private static final int INFINITE = Integer.MAX_VALUE;
+    private static final byte[] NO_PATH = new byte[0];
+    // the order MazeSearch queues the ways out of a space in.
+    private static final int[] ORDER = {GridSpace.UP, GridSpace.LEFT, GridSpace.RIGHT, GridSpace.DOWN};
+
+    private final GridArray grid;
+    private final int goal;
+    private final int[] g, rhs;
+    private final IndexedHeap open;
+    private int expanded;
+    // which states are on a shortest path with the most lives, while path()
+    // builds it, and a list of them so they can be cleared after.
+    private final boolean[] best;
+    private int[] marked = new int[16];
+    // asks for the path the first solver would have found.
+    private MazeSearch original;
+
+    // Parameters:
+    // grid: the maze to search, which is edited through this class.
+    public DynamicSearch(GridArray grid){
+        this.grid = grid;
+        goal = grid.size() * LIVES;
+        g = new int[goal + 1];
+        rhs = new int[goal + 1];
+        Arrays.fill(g, INFINITE);
+        Arrays.fill(rhs, INFINITE);
+        open = new IndexedHeap(goal + 1);
+        best = new boolean[goal];
+        update(grid.start * LIVES);
+    }
+
+    // toggleWall() opens or closes the wall on one side of a space, along with
+    // the wall of the space on the other side.
+    //
+    // Parameters:
+    // space: the space
+    // dir: the side of the space, as a GridSpace direction code.
+    public void toggleWall(int space, int dir){
+        int next = space + grid.step(dir);
+        int back = opposite(dir);
+        boolean opening = !grid.has(space, dir);
+        grid.cells[space] = (byte) (opening ? grid.cells[space] | dir : grid.cells[space] & ~dir);
+        grid.cells[next] = (byte) (opening ? grid.cells[next] | back : grid.cells[next] & ~back);
+        grid.changed();
+        // the states on both sides have gained or lost a way in.
+        for(int used = 0; used < LIVES; used++){
+            update(next * LIVES + used);
+            update(space * LIVES + used);
+        }
+    }
+
+    // setMine() puts a mine on a space, or takes one off it.
+    public void setMine(int space, boolean mine){
+        grid.cells[space] = (byte) (mine ? grid.cells[space] | GridSpace.MINE : grid.cells[space] & ~GridSpace.MINE);
+        grid.changed();
+        // moving into the space now costs a different number of lives.
+        for(int used = 0; used < LIVES; used++){
+            update(space * LIVES + used);
+        }
+    }
+
+    // moveStart() moves the start to another space.
+    public void moveStart(int space){
+        int old = grid.start;
+        grid.cells[old] &= ~GridSpace.START;
+        grid.cells[space] |= GridSpace.START;
+        grid.start = space;
+        grid.changed();
+        update(old * LIVES);
+        update(space * LIVES);
+    }
+
+    // moveEnd() moves the end to another space.
+    public void moveEnd(int space){
+        grid.cells[grid.end] &= ~GridSpace.END;
+        grid.cells[space] |= GridSpace.END;
+        grid.end = space;
+        grid.changed();
+        update(goal);
+    }
+
+    // update() works out a state's rhs again from the states before it, and
+    // puts it in the heap if that makes it out of date, or takes it out if not.
+    private void update(int state){
+        if(state == grid.start * LIVES){
+            rhs[state] = 0;
+        }
+        else if(state == goal){
+            // the goal is reached from the end, by a step costing one more
+            // than the mines used.
+            int best = INFINITE;
+            for(int used = 0; used < LIVES; used++){
+                int dist = g[grid.end * LIVES + used];
+                if(dist != INFINITE){
+                    best = Math.min(best, dist + used + 1);
+                }
+            }
+            rhs[state] = best;
+        }
+        else{
+            int space = state / LIVES;
+            // the state before this one used one mine less if there's one here.
+            int before = state % LIVES - (grid.has(space, GridSpace.MINE) ? 1 : 0);
+            int best = INFINITE;
+            if(before >= 0){
+                for(int dir = GridSpace.UP; dir <= GridSpace.LEFT; dir <<= 1){
+                    int prev = behind(space, dir);
+                    if(prev >= 0){
+                        int dist = g[prev * LIVES + before];
+                        if(dist != INFINITE){
+                            best = Math.min(best, dist + LIVES);
+                        }
+                    }
+                }
+            }
+            rhs[state] = best;
+        }
+        if(g[state] != rhs[state]){
+            open.put(state, Math.min(g[state], rhs[state]));
+        }
+        else{
+            open.remove(state);
+        }
+    }
+
+    // solve() brings the distances up to date, as far as the goal needs them.
+    public void solve(){
+        expanded = 0;
+        while(open.peekKey() < Math.min(g[goal], rhs[goal]) || g[goal] != rhs[goal]){
+            int state = open.poll();
+            expanded++;
+            if(g[state] > rhs[state]){
+                // the state got closer: settle it, and tell the states after it.
+                g[state] = rhs[state];
+            }
+            else{
+                // the state got farther: forget its distance, and work it and
+                // the states after it out again.
+                g[state] = INFINITE;
+                update(state);
+            }
+            if(state == goal){
+                continue;
+            }
+            int space = state / LIVES;
+            int used = state % LIVES;
+            if(space == grid.end){
+                update(goal);
+            }
+            for(int dir = GridSpace.UP; dir <= GridSpace.LEFT; dir <<= 1){
+                int next = ahead(space, dir);
+                if(next < 0){
+                    continue;
+                }
+                int nextUsed = grid.has(next, GridSpace.MINE) ? used + 1 : used;
+                if(nextUsed < LIVES){
+                    update(next * LIVES + nextUsed);
+                }
+            }
+        }
+    }
+
+    // found() tells whether there is a safe path from the start to the end.
+    public boolean found(){
+        return g[goal] != INFINITE;
+    }
+
+    // lives() gives the lives left at the end of the path.
+    public int lives(){
+        return LIVES - (g[goal] - 1) % LIVES;
+    }
+
+    // expanded() gives the count of states the last solve() went through.
+    public int expanded(){
+        return expanded;
+    }
+
+    // path() gives the directions of the shortest path with the most lives,
+    // the one a fresh solve gives.
+    //
+    // Returns:
+    // byte[], the directions of the path, from start to end, as GridSpace
+    // direction codes, or an empty array if there is no path.
+    public byte[] path(){
+        if(!found()){
+            return NO_PATH;
+        }
+        int end = grid.end * LIVES + (g[goal] - 1) % LIVES;
+        int length = g[end] / LIVES;
+        if(length == 0){
+            return NO_PATH;
+        }
+        if(original == null){
+            original = new MazeSearch(grid);
+        }
+        byte[] first = original.original(grid.end, length, lives());
+        if(first != null){
+            return Arrays.copyOf(first, length);
+        }
+
+        // mark the states on the shortest paths to the end, going back along
+        // the distances; every state before a marked one is one step nearer.
+        int count = 0;
+        best[end] = true;
+        marked[count++] = end;
+        for(int i = 0; i < count; i++){
+            int state = marked[i];
+            int space = state / LIVES;
+            int before = state % LIVES - (grid.has(space, GridSpace.MINE) ? 1 : 0);
+            if(before < 0){
+                continue;
+            }
+            for(int dir = GridSpace.UP; dir <= GridSpace.LEFT; dir <<= 1){
+                int prev = behind(space, dir);
+                if(prev < 0){
+                    continue;
+                }
+                int from = prev * LIVES + before;
+                if(!best[from] && g[from] == g[state] - LIVES){
+                    best[from] = true;
+                    if(count == marked.length){
+                        marked = Arrays.copyOf(marked, count * 2);
+                    }
+                    marked[count++] = from;
+                }
+            }
+        }
+
+        // walk forward, taking the first way in queue order that stays on them.
+        byte[] dirs = new byte[length];
+        int state = grid.start * LIVES;
+        for(int i = 0; i < length; i++){
+            int space = state / LIVES;
+            for(int dir: ORDER){
+                int next = ahead(space, dir);
+                if(next < 0){
+                    continue;
+                }
+                int used = state % LIVES + (grid.has(next, GridSpace.MINE) ? 1 : 0);
+                if(used < LIVES && best[next * LIVES + used] && g[next * LIVES + used] == g[state] + LIVES){
+                    dirs[i] = (byte) dir;
+                    state = next * LIVES + used;
+                    break;
+                }
+            }
+        }
+        for(int i = 0; i < count; i++){
+            best[marked[i]] = false;
+        }
+        return dirs;
+    }
+
+    // ahead() gives the space a door of a space leads to, or -1 if there is
+    // no such door, or it leads out of the maze.
+    private int ahead(int space, int dir){
+        if(!grid.has(space, dir) || !inside(space, dir)){
+            return -1;
+        }
+        return space + grid.step(dir);
+    }
+
+    // behind() gives the space a move in a direction into a space comes
+    // from, or -1 if there is no door from it.
+    private int behind(int space, int dir){
+        int back = opposite(dir);
+        if(!inside(space, back)){
+            return -1;
+        }
+        int prev = space - grid.step(dir);
+        return grid.has(prev, dir) ? prev : -1;
+    }
+
+    // inside() tells whether the space next to a space, in a direction, is
+    // in the maze.
+    private boolean inside(int space, int dir){
+        switch(dir){
+            case GridSpace.UP: return space >= grid.width;
+            case GridSpace.DOWN: return space < grid.size() - grid.width;
+            case GridSpace.LEFT: return space % grid.width > 0;
+            default: return space % grid.width < grid.width - 1;
+        }
+    }
+
+    // opposite() gives the direction opposite another.
+    private static int opposite(int dir){
+        switch(dir){
+            case GridSpace.UP: return GridSpace.DOWN;
+            case GridSpace.DOWN: return GridSpace.UP;
+            case GridSpace.LEFT: return GridSpace.RIGHT;
+            default: return GridSpace.LEFT;
+        }
+    }
+}
@@ -1 +1,332 @@
+/*
+ * Class: GridArray
+ *
+ * This class holds the spaces of a maze in packed form. Each space
+ * is one byte, using the same bit codes as GridSpace, and spaces are
+ * numbered row * width + col.
+ *
+ * Alongside the spaces are flat arrays for what the solver finds:
+ * for each space, the number of lives of the path with the most
+ * lives that reaches it, and for each (space, lives) state, the
+ * direction taken to get there, which leads back to the state
+ * before it. The distance of a space isn't kept; a view of it works
+ * it out by following those directions back to the start.
+ *
+ * That makes 5 bytes a space under the standard rules: the code,
+ * the lives, and a direction for each of the 3 lives. A maze of 1e8
+ * spaces takes about 500 MB, which is above the few hundred MB
+ * hoped for, since a direction has to be kept for every state for
+ * the path with the most lives to be found. The breadth-first
+ * search adds its queue, which holds only the states at two
+ * distances, and one byte a space to check its path against the
+ * one the first solver would have picked; A* adds 4 bytes per
+ * state, 12 a space, for the distances of the states it has
+ * reached.
+ *
+ * The searches fill these in under the standard MazeRules. A path
+ * found under other rules can be recorded in them too, with the
+ * distance of each space along it being the cost of getting there.
+ *
+ * The grid also keeps the CorridorGraph of its layout, once it has
+ * been asked for, until the layout is changed or the grid is
+ * resized; a SolverContext keeps the graphs of recent layouts, and
+ * hands one back to the grid when its layout comes up again.
+ *
+ * A grid can be resized to hold another maze, as a SolverContext
+ * does for each maze it solves; its arrays are only made larger
+ * when the maze is larger than any it has held before, so they may
+ * be longer than the maze, and only its first size() spaces count.
+ *
+ * GridSpace objects are only made on request, as a view of one space.
+ *
+ */
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class GridArray
+{
+    // the number of lives the player starts with.
+    public static final int LIVES = 3;
+    // the distance of a space the solver has not reached.
+    public static final int UNREACHED = 500000000;
+
+    // the rows and columns of the maze the grid holds; they only change when
+    // the grid is resized for another maze.
+    public int height, width;
+    private int size;
+    int start, end;
+    byte[] cells;
+    byte[] lives;
+    byte[] via;
+    // the rules the arrays were last filled in under.
+    private MazeRules rules = MazeRules.STANDARD;
+    // the junctions and corridors of the layout, or null until asked for.
+    private CorridorGraph corridors;
+
+    // Parameters:
+    // height: the number of rows in the maze
+    // width: the number of columns in the maze
+    public GridArray(int height, int width){
+        cells = new byte[0];
+        lives = new byte[0];
+        via = new byte[0];
+        resize(height, width);
+    }
+
+    // resize() makes the grid hold an empty maze of another size, growing its
+    // arrays only if they are too small for it.
+    //
+    // Parameters:
+    // height: the number of rows in the maze
+    // width: the number of columns in the maze
+    void resize(int height, int width){
+        this.height = height;
+        this.width = width;
+        size = height * width;
+        if(cells.length < size){
+            cells = new byte[size];
+            lives = new byte[size];
+        }
+        if(via.length < size * LIVES){
+            via = new byte[size * LIVES];
+        }
+        Arrays.fill(cells, 0, size, (byte) 0);
+        start = 0;
+        end = 0;
+        changed();
+        reset();
+    }
+
+    // set() stores the code of a space, and saves it as the start or
+    // end space if it is one.
+    //
+    // Parameters:
+    // space: the number of the space
+    // code: the integer encoding this space
+    public void set(int space, int code){
+        cells[space] = (byte) code;
+        if((code & GridSpace.START) != 0){
+            start = space;
+        }
+        if((code & GridSpace.END) != 0){
+            end = space;
+        }
+    }
+
+    // load() stores the codes of every space at once, copied straight from a
+    // buffer holding one byte per space, and then finds the start and end.
+    //
+    // Parameters:
+    // codes: the buffer, positioned at the code of the first space.
+    public void load(ByteBuffer codes){
+        codes.get(cells, 0, size);
+        for(int space = 0; space < size; space++){
+            if((cells[space] & GridSpace.START) != 0){
+                start = space;
+            }
+            if((cells[space] & GridSpace.END) != 0){
+                end = space;
+            }
+        }
+    }
+
+    // corridors() gives the junctions and corridors of the grid's layout,
+    // shrinking it down to them the first time it's asked for.
+    CorridorGraph corridors(){
+        if(corridors == null){
+            corridors = new CorridorGraph(this);
+        }
+        return corridors;
+    }
+
+    // adopt() gives the grid a CorridorGraph already built for its layout,
+    // so it isn't built again. The graph must have been built on this grid,
+    // when it held the same layout as it does now.
+    void adopt(CorridorGraph graph){
+        corridors = graph;
+    }
+
+    // changed() lets the grid know the codes of its spaces have been changed,
+    // so anything worked out from the old layout is thrown away.
+    void changed(){
+        corridors = null;
+    }
+
+    // has() tells whether a space has a feature, given by its bit code.
+    public boolean has(int space, int bit){
+        return (cells[space] & bit) != 0;
+    }
+
+    // size() gives the number of spaces in the grid.
+    public int size(){
+        return size;
+    }
+
+    // reset() clears anything a previous solve left behind.
+    void reset(){
+        rules = MazeRules.STANDARD;
+        Arrays.fill(lives, 0, size, (byte) 0);
+        Arrays.fill(via, 0, size * LIVES, (byte) 0);
+    }
+
+    // state() numbers a (space, lives left) state.
+    static int state(int space, int lives){
+        return space * LIVES + lives - 1;
+    }
+
+    // step() gives how far the space number moves when going in a direction.
+    int step(int dir){
+        switch(dir){
+            case GridSpace.UP: return -width;
+            case GridSpace.DOWN: return width;
+            case GridSpace.LEFT: return -1;
+            default: return 1;
+        }
+    }
+
+    // name() gives the name of a direction as printed in the solution.
+    static String name(int dir){
+        switch(dir){
+            case GridSpace.UP: return "up";
+            case GridSpace.DOWN: return "down";
+            case GridSpace.LEFT: return "left";
+            default: return "right";
+        }
+    }
+
+    // code() gives the direction code of a direction's name, as printed in
+    // the solution.
+    static int code(String name){
+        switch(name){
+            case "up": return GridSpace.UP;
+            case "down": return GridSpace.DOWN;
+            case "left": return GridSpace.LEFT;
+            case "right": return GridSpace.RIGHT;
+            default: throw new IllegalArgumentException("Not a direction: " + name);
+        }
+    }
+
+    // record() fills the arrays in with a path from the start, in place of
+    // whatever a search left there, so they describe that path.
+    //
+    // Parameters:
+    // path: the directions of the path, as GridSpace direction codes.
+    void record(byte[] path){
+        record(path, path.length, MazeRules.STANDARD);
+    }
+
+    // record() fills the arrays in with a path held in the first length
+    // directions of a buffer.
+    //
+    // Parameters:
+    // path: the buffer holding the directions of the path
+    // length: the number of directions in the path.
+    void record(byte[] path, int length){
+        record(path, length, MazeRules.STANDARD);
+    }
+
+    // record() fills the arrays in with a path from the start found under
+    // some rules, in place of whatever a search left there.
+    //
+    // Parameters:
+    // path: the directions of the path, as GridSpace direction codes
+    // rules: the rules the path was found under.
+    void record(byte[] path, MazeRules rules){
+        record(path, path.length, rules);
+    }
+
+    // record() fills the arrays in with the first length directions of a
+    // path found under some rules.
+    private void record(byte[] path, int length, MazeRules rules){
+        reset();
+        this.rules = rules;
+        // with more lives, each space has more states to keep a direction for.
+        if((long) size() * rules.lives > via.length){
+            via = new byte[size() * rules.lives];
+        }
+        else{
+            Arrays.fill(via, 0, size() * rules.lives, (byte) 0);
+        }
+        int space = start;
+        int left = rules.lives;
+        via[slot(space, left)] = GridSpace.START;
+        lives[space] = (byte) left;
+        for(int i = 0; i < length; i++){
+            space += step(path[i]);
+            if(has(space, GridSpace.MINE)){
+                left -= rules.damage;
+            }
+            lives[space] = (byte) left;
+            via[slot(space, left)] = path[i];
+        }
+    }
+
+    // slot() gives where the direction of a (space, lives left) state is kept,
+    // under the rules the arrays were filled in under; under the standard
+    // rules, it is the state's number.
+    private int slot(int space, int left){
+        return space * rules.lives + left - 1;
+    }
+
+    // getSpace() makes a GridSpace view of one space, filled in with the
+    // path the solver found to it. The views of the spaces before it on
+    // that path are made along with it and linked through prev.
+    //
+    // Parameters:
+    // row: the row of the space
+    // col: the column of the space
+    //
+    // Returns:
+    // GridSpace, a view of the space.
+    public GridSpace getSpace(int row, int col){
+        int space = row * width + col;
+        int left = lives[space];
+        GridSpace view = describe(space, left, distance(space, left));
+        // follow the directions back to the start, one state at a time.
+        GridSpace square = view;
+        while(square.dir != null){
+            int dir = via[slot(space, left)];
+            int cost = rules.cost(this, space);
+            if(has(space, GridSpace.MINE)){
+                left += rules.damage;
+            }
+            space -= step(dir);
+            square.prev = describe(space, left, square.distance - cost);
+            square = square.prev;
+        }
+        return view;
+    }
+
+    // distance() gives the cost of the path to a space, reached in a given
+    // state, adding up the cost of each step back to the start.
+    private int distance(int space, int left){
+        if(left == 0){
+            return UNREACHED;
+        }
+        int dist = 0;
+        for(int dir = via[slot(space, left)]; dir != GridSpace.START; dir = via[slot(space, left)]){
+            dist += rules.cost(this, space);
+            if(has(space, GridSpace.MINE)){
+                left += rules.damage;
+            }
+            space -= step(dir);
+        }
+        return dist;
+    }
+
+    // describe() makes a view of one space as reached in a given state.
+    private GridSpace describe(int space, int left, int dist){
+        GridSpace square = new GridSpace(cells[space], space % width, space / width);
+        if(left == 0){
+            return square;
+        }
+        square.distance = dist;
+        square.lives = left;
+        int dir = via[slot(space, left)];
+        if(dir != GridSpace.START){
+            square.dir = name(dir);
+        }
+        return square;
+    }
+}
@@ -14,21 +14,24 @@
  * and the number of lives left at this point in the shortest
  * path.
  *
+ * The maze itself keeps its spaces packed in a GridArray;
+ * GridSpace objects are made from it as a view of one space.
+ *
  */
 
 public class GridSpace implements Comparable<GridSpace>
 {
     public boolean up, down, left, right, mine, start, end;
-    public Integer col, row, distance, lives;
+    public int col, row, distance, lives;
     public GridSpace prev;
     public String dir;
-    private static final int UP = 1;
-    private static final int DOWN = 4;
-    private static final int RIGHT = 2;
-    private static final int LEFT = 8;
-    private static final int MINE = 64;
-    private static final int START = 16;
-    private static final int END = 32;
+    static final int UP = 1;
+    static final int DOWN = 4;
+    static final int RIGHT = 2;
+    static final int LEFT = 8;
+    static final int MINE = 64;
+    static final int START = 16;
+    static final int END = 32;
 
     // Parameters:
     // num: the integer encoding this space
@@ -46,8 +49,8 @@ public class GridSpace implements Comparable<GridSpace>
         end = ((num & END) == END);
 
         // set initial distance very high, default lives to the full number
-        distance = 500000000;
-        lives = 3;
+        distance = GridArray.UNREACHED;
+        lives = GridArray.LIVES;
 
         // set the column and row for this space.
         col = c;
@@ -0,0 +1,132 @@
+/*
+ * Class: IndexedHeap
+ *
+ * This class is a priority queue of items numbered 0 up to a fixed
+ * capacity, each with an int key, smallest key first. It is kept
+ * as a binary heap along with the position of each item in it, so
+ * an item's key can be changed, or the item taken out, wherever it
+ * is in the heap. DynamicSearch uses it to hold the states whose
+ * distances are out of date.
+ *
+ */
+
+public class IndexedHeap
+{
+    private final int[] heap;
+    // one more than each item's position in the heap, or 0 if it isn't there.
+    private final int[] position;
+    private final int[] keys;
+    private int size;
+
+    // Parameters:
+    // capacity: the number of items, which are numbered from 0.
+    public IndexedHeap(int capacity){
+        heap = new int[capacity];
+        position = new int[capacity];
+        keys = new int[capacity];
+    }
+
+    // contains() tells whether an item is in the heap.
+    public boolean contains(int item){
+        return position[item] != 0;
+    }
+
+    // put() adds an item to the heap with a key, or changes its key if it's
+    // already there.
+    public void put(int item, int key){
+        if(position[item] == 0){
+            heap[size] = item;
+            position[item] = ++size;
+            keys[item] = key;
+            up(size - 1);
+            return;
+        }
+        int old = keys[item];
+        keys[item] = key;
+        if(key < old){
+            up(position[item] - 1);
+        }
+        else{
+            down(position[item] - 1);
+        }
+    }
+
+    // remove() takes an item out of the heap, if it's there.
+    public void remove(int item){
+        int at = position[item] - 1;
+        if(at < 0){
+            return;
+        }
+        position[item] = 0;
+        size--;
+        if(at == size){
+            return;
+        }
+        // the last item fills the gap, and is moved up or down into place.
+        int last = heap[size];
+        heap[at] = last;
+        position[last] = at + 1;
+        up(at);
+        down(position[last] - 1);
+    }
+
+    // peekKey() gives the smallest key in the heap, or Integer.MAX_VALUE if
+    // it's empty.
+    public int peekKey(){
+        return size == 0 ? Integer.MAX_VALUE : keys[heap[0]];
+    }
+
+    // poll() takes the item with the smallest key out of the heap.
+    //
+    // Returns:
+    // int, the item.
+    public int poll(){
+        int item = heap[0];
+        remove(item);
+        return item;
+    }
+
+    // isEmpty() tells whether there are any items in the heap.
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    // up() moves the item at a position up until its parent's key is no larger.
+    private void up(int at){
+        int item = heap[at];
+        while(at > 0){
+            int parent = (at - 1) / 2;
+            if(keys[heap[parent]] <= keys[item]){
+                break;
+            }
+            heap[at] = heap[parent];
+            position[heap[at]] = at + 1;
+            at = parent;
+        }
+        heap[at] = item;
+        position[item] = at + 1;
+    }
+
+    // down() moves the item at a position down until its children's keys are
+    // no smaller.
+    private void down(int at){
+        int item = heap[at];
+        while(true){
+            int child = at * 2 + 1;
+            if(child >= size){
+                break;
+            }
+            if(child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]){
+                child++;
+            }
+            if(keys[item] <= keys[heap[child]]){
+                break;
+            }
+            heap[at] = heap[child];
+            position[heap[at]] = at + 1;
+            at = child;
+        }
+        heap[at] = item;
+        position[item] = at + 1;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Class: IntQueue
+ *
+ * This class is a first-in, first-out queue of ints, kept in a
+ * ring buffer that doubles in size when it fills up. Items can
+ * also be taken from the back, to use it as a stack. The solver
+ * uses it to hold search states without boxing each one into an
+ * Integer. The queue counts the items put in and taken out, so
+ * the work a search did can be reported.
+ *
+ */
+
+public class IntQueue
+{
+    private int[] items;
+    private int head, size;
+    private long operations;
+
+    // Parameters:
+    // capacity: the number of items the queue can hold before it grows.
+    public IntQueue(int capacity){
+        items = new int[Math.max(capacity, 16)];
+    }
+
+    // add() puts an item at the back of the queue.
+    public void add(int item){
+        // if the buffer is full, copy the items in order into one twice the size.
+        if(size == items.length){
+            int[] bigger = new int[items.length * 2];
+            int first = items.length - head;
+            System.arraycopy(items, head, bigger, 0, first);
+            System.arraycopy(items, 0, bigger, first, head);
+            items = bigger;
+            head = 0;
+        }
+        int tail = head + size;
+        if(tail >= items.length){
+            tail -= items.length;
+        }
+        items[tail] = item;
+        size++;
+        operations++;
+    }
+
+    // remove() takes the item at the front of the queue.
+    //
+    // Returns:
+    // int, the item that has been in the queue longest.
+    public int remove(){
+        int item = items[head];
+        head++;
+        if(head == items.length){
+            head = 0;
+        }
+        size--;
+        operations++;
+        return item;
+    }
+
+    // removeLast() takes the item at the back of the queue.
+    //
+    // Returns:
+    // int, the item that was added most recently.
+    public int removeLast(){
+        size--;
+        operations++;
+        int tail = head + size;
+        if(tail >= items.length){
+            tail -= items.length;
+        }
+        return items[tail];
+    }
+
+    // isEmpty() tells whether there are any items left in the queue.
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    // size() gives the number of items in the queue.
+    public int size(){
+        return size;
+    }
+
+    // operations() gives the count of items put in and taken out so far.
+    public long operations(){
+        return operations;
+    }
+
+    // clear() empties the queue, keeping its buffer for reuse.
+    public void clear(){
+        head = 0;
+        size = 0;
+    }
+}
@@ -4,336 +4,499 @@
  * Date Created: 12/20/2017
  *
  * This class represents the maze as a whole. It contains
- * a 2D ArrayList of GridSpaces as a representation of their
- * adjacency to one another. It also contians information on
- * the maze's height, width, start and end locations; a stack
- * representing the directions to take in the solution path;
+ * a GridArray holding the maze's spaces, packed one byte to
+ * a space, as a representation of their adjacency to one
+ * another. It also contians information on
+ * the maze's height, width, start and end locations; an array
+ * of the directions to take in the solution path;
  * and an integer number of lives left after the solution path
  * is taken.
  *
  * The maze solving method here is a modified version of Dijkstra's
  * algorithm. This algorithm is fast for finding the shortest path,
- * especially when prioritizing squares by minimum distance in the
- * unsettled list, and player lives can be tracked concurrently with
+ * especially when prioritizing squares by minimum distance with a
+ * queue, and player lives can be tracked concurrently with
  * min distance values to know when risking a mine square is safe.
  *
+ * The search itself is done by MazeSearch, which can also solve
+ * the maze with A* or a bidirectional search instead.
+ *
+ * The maze can also be solved under other MazeRules, with more or
+ * fewer lives, mines that take more of them, or costs for moving
+ * into spaces, by a ResourceSearch. The path is then the cheapest
+ * one, rather than the shortest.
+ *
+ * The maze can be edited a wall, mine, start or end at a time; the
+ * solution is then kept up to date by a DynamicSearch, which only
+ * redoes the part of the search each edit changes.
+ *
+ * Whether the maze has any path at all can be found with a
+ * Bitboard flood, without searching it, and a maze with none is
+ * written as No path.
+ *
+ * The maze is drawn by a MazeRenderer.
+ *
  */
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Stack;
 
 
 public class Maze
 {
-    private int height, width, startcol, startrow, endcol, endrow, lives;
-    private ArrayList<ArrayList<GridSpace>> grid = new ArrayList<>();
-    private Stack<String> solution;
+    private int height, width, lives, expanded;
+    private long queueOps;
+    private GridArray grid;
+    private byte[] path;
+    // the rules the maze was last solved under.
+    private MazeRules rules = MazeRules.STANDARD;
+    // the search kept up to date as the maze is edited, made at the first
+    // edit, and whether the grid's arrays still describe an older path.
+    private DynamicSearch dynamic;
+    private boolean stale;
 
     // Parameters:
     // nums: an ArrayList of integers representing the height, width, and cells
     // of the maze.
     public Maze(ArrayList<Integer> nums){
+        this(unbox(nums), nums.size());
+    }
 
-        // set height and width from the first two values of the list
-        height = nums.get(0);
-        width = nums.get(1);
-
-        // starting from the third value, initialize the 2D ArrayList
-        // based on height and width
-        int index = 2;
-        for(int row = 0; row < height; row++){
-            // create a new row for each row in the height of the maze
-            ArrayList<GridSpace> newRow = new ArrayList<>();
-            for(int col = 0; col < width; col++){
-                // for each column in the width of the maze, initialize
-                // a new GridSpace with the next number from the list
-                // and the current row and column values
-                GridSpace space = new GridSpace(nums.get(index),col,row);
-                // add to the new row
-                newRow.add(space);
-                // if this new space is start or end, save that information
-                // in the maze's start/end coordinates
-                if(space.start){
-                    startcol = col;
-                    startrow = row;
-                }
-                if(space.end){
-                    endcol = col;
-                    endrow = row;
-                }
-                // move to the next number in the list.
-                index++;
-            }
-            // add each completed row to the grid.
-            grid.add(newRow);
-        }
+    // Parameters:
+    // nums: an array of integers representing the height, width, and cells
+    // of the maze.
+    // count: the count of integers in the array that belong to the maze.
+    public Maze(int[] nums, int count){
+        this(nums, count, SearchEngine.DIJKSTRA);
+    }
+
+    // Parameters:
+    // nums: an array of integers representing the height, width, and cells
+    // of the maze.
+    // count: the count of integers in the array that belong to the maze.
+    // engine: the search algorithm to solve the maze with.
+    public Maze(int[] nums, int count, SearchEngine engine){
+        build(nums, count);
 
         // once the maze is initialized, go ahead and solve it.
-        this.solveMaze();
+        this.solveMaze(engine);
     }
 
-    // solveMaze() solves the maze for the shortest path avoiding too
-    // many mines using a modified version of Dijkstra's Algorithm.
-    // This solution is stored as a stack of directions, as strings,
-    // from start to end.
-    private void solveMaze() {
-
-        // create lists to keep track of the settled and unsettled
-        // spaces in the maze.
-        ArrayList<GridSpace> settled = new ArrayList<>();
-        ArrayList<GridSpace> unsettled = new ArrayList<>();
-
-        // add all of the spaces to unsettled to begin with.
-        for(int i = 0; i < height; i++){
-            for(int j = 0; j < width; j++){
-                unsettled.add(grid.get(i).get(j));
-            }
+    // Parameters:
+    // nums: an array of integers representing the height, width, and cells
+    // of the maze.
+    // count: the count of integers in the array that belong to the maze.
+    // engine: the search algorithm to solve the maze with under the standard
+    // rules.
+    // rules: the rules to solve the maze under.
+    public Maze(int[] nums, int count, SearchEngine engine, MazeRules rules){
+        build(nums, count);
+        solveMaze(engine, rules);
+    }
+
+    // Parameters:
+    // nums: an array of integers representing the height, width, and cells
+    // of the maze.
+    // count: the count of integers in the array that belong to the maze.
+    // path: the directions of a solution already found for this maze,
+    // as GridSpace direction codes, which is used instead of solving it.
+    // lives: the lives left at the end of that solution.
+    public Maze(int[] nums, int count, byte[] path, int lives){
+        build(nums, count);
+        this.path = path.clone();
+        this.lives = lives;
+    }
+
+    // build() fills in the grid from the numbers encoding the maze.
+    private void build(int[] nums, int count){
+
+        // set height and width from the first two values of the array
+        if(count < 2){
+            throw new IllegalArgumentException("Maze needs a height and width");
+        }
+        height = nums[0];
+        width = nums[1];
+        if(count - 2 < (long) height * width){
+            throw new IllegalArgumentException("Maze of " + height + "x" + width
+                    + " has only " + (count - 2) + " spaces");
         }
 
-        // start the algorithm from the start square, based on
-        // the saved coordinates. Set the start square's distance
-        // to zero. Note for later that this is the beginning of
-        // the algorithm.
-        GridSpace square = grid.get(startrow).get(startcol);
-        square.distance = 0;
-        boolean beginning = true;
-
-        // loop through this process as long as there are unsettled
-        // spaces left in the list.
-        while(!unsettled.isEmpty()){
-            // look for the minimum distance square in the unsettled list
-            GridSpace min;
-            // if this is the first iteration, set the beginning square as the minimum
-            if(beginning){
-                min = square;
-                beginning = false;
-            }
-            // if this is not the first iteration, sort the unsettled list by distance
-            // and get the square with the smallest distance.
-            else{
-                Collections.sort(unsettled);
-                min = unsettled.get(0);
-            }
+        // starting from the third value, fill in the grid one space at a
+        // time, row by row. The grid saves the start and end spaces as it
+        // comes across them.
+        grid = new GridArray(height, width);
+        for(int space = 0; space < grid.size(); space++){
+            grid.set(space, nums[space + 2]);
+        }
+    }
 
-            // set the column and row to the current column and row of the square at hand.
-            int col = min.col;
-            int row = min.row;
-
-            // if it's possible to move up from the square, evaluate the neighbor above
-            if(min.up){
-                // set the neighbor to be the square above
-                GridSpace neighbor = grid.get(row-1).get(col);
-                // the new distance is the min. distance of the previous square, plus 1 to
-                // the neighbor square.
-                int alt = min.distance + 1;
-                // see if it's safe to move here; if the player doesn't have enough lives
-                // and there's a mine there, it's not safe.
-                boolean safe;
-                safe = !neighbor.mine || min.lives > 1;
-                // if it's safe and the new distance is lower than the neighbor's previous
-                // distance, replace it.
-                if(alt < neighbor.distance && safe){
-                    // set the new distance
-                    neighbor.distance = alt;
-                    // set the neighbor's previous node on the shortest path as the one
-                    // we were in.
-                    neighbor.prev = min;
-                    // set the direction on the shortest path as "up" since that's how we
-                    // got here.
-                    neighbor.dir = "up";
-                    // if the neighbor has a mine, the neighbor's lives should be one less
-                    // than the lives we had before. Otherwise it's the same number of lives.
-                    if(neighbor.mine){
-                        neighbor.lives = min.lives - 1;
-                    }
-                    else{
-                        neighbor.lives = min.lives;
-                    }
-                }
-            }
-            // if it's possible to move down from the square, evaluate the neighbor below.
-            if(min.down){
-                // set the neighbor to be the square below
-                GridSpace neighbor = grid.get(row+1).get(col);
-                // the new distance is the min. distance of the previous square, plus 1 to
-                // the neighbor square.
-                int alt = min.distance + 1;
-                // see if it's safe to move here; if the player doesn't have enough lives
-                // and there's a mine there, it's not safe.
-                boolean safe;
-                safe = !neighbor.mine || min.lives > 1;
-                // if it's safe and the new distance is lower than the neighbor's previous
-                // distance, replace it.
-                if(alt < neighbor.distance && safe){
-                    // set the new distance
-                    neighbor.distance = alt;
-                    // set the neighbor's previous node on the shortest path as the one
-                    // we were in.
-                    neighbor.prev = min;
-                    // set the direction on the shortest path as "up" since that's how we
-                    // got here.
-                    neighbor.dir = "down";
-                    // if the neighbor has a mine, the neighbor's lives should be one less
-                    // than the lives we had before. Otherwise it's the same number of lives.
-                    if(neighbor.mine){
-                        neighbor.lives = min.lives - 1;
-                    }
-                    else{
-                        neighbor.lives = min.lives;
-                    }
-                }
-            }
-            // if it's possible to move left, evaluate the neighbor to the left
-            if(min.left){
-                // set the neighbor to be the square to the left
-                GridSpace neighbor = grid.get(row).get(col-1);
-                // the new distance is the min. distance of the previous square, plus 1 to
-                // the neighbor square.
-                int alt = min.distance + 1;
-                // see if it's safe to move here; if the player doesn't have enough lives
-                // and there's a mine there, it's not safe.
-                boolean safe;
-                safe = !neighbor.mine || min.lives > 1;
-                // if it's safe and the new distance is lower than the neighbor's previous
-                // distance, replace it.
-                if(alt < neighbor.distance && safe){
-                    // set the new distance
-                    neighbor.distance = alt;
-                    // set the neighbor's previous node on the shortest path as the one
-                    // we were in.
-                    neighbor.prev = min;
-                    // set the direction on the shortest path as "up" since that's how we
-                    // got here.
-                    neighbor.dir = "left";
-                    // if the neighbor has a mine, the neighbor's lives should be one less
-                    // than the lives we had before. Otherwise it's the same number of lives.
-                    if(neighbor.mine){
-                        neighbor.lives = min.lives - 1;
-                    }
-                    else{
-                        neighbor.lives = min.lives;
-                    }
-                }
-            }
-            // if it's possible to move to the right, evaluate the neighbor to the right
-            if(min.right){
-                // set the neighbor to be the square to the right
-                GridSpace neighbor = grid.get(row).get(col+1);
-                // the new distance is the min. distance of the previous square, plus 1 to
-                // the neighbor square.
-                int alt = min.distance + 1;
-                // see if it's safe to move here; if the player doesn't have enough lives
-                // and there's a mine there, it's not safe.
-                boolean safe;
-                safe = !neighbor.mine || min.lives > 1;
-                // if it's safe and the new distance is lower than the neighbor's previous
-                // distance, replace it.
-                if(alt < neighbor.distance && safe){
-                    // set the new distance
-                    neighbor.distance = alt;
-                    // set the neighbor's previous node on the shortest path as the one
-                    // we were in.
-                    neighbor.prev = min;
-                    // set the direction on the shortest path as "up" since that's how we
-                    // got here.
-                    neighbor.dir = "right";
-                    // if the neighbor has a mine, the neighbor's lives should be one less
-                    // than the lives we had before. Otherwise it's the same number of lives.
-                    if(neighbor.mine){
-                        neighbor.lives = min.lives - 1;
-                    }
-                    else{
-                        neighbor.lives = min.lives;
-                    }
-                }
+    // unbox() copies a list of integers into an array.
+    private static int[] unbox(ArrayList<Integer> nums){
+        int[] values = new int[nums.size()];
+        for(int i = 0; i < values.length; i++){
+            values[i] = nums.get(i);
+        }
+        return values;
+    }
 
-            }
-            // once this node's neighbors have been checked out, remove it from unsettled and add to settled.
-            unsettled.remove(min);
-            settled.add(min);
+    // solveMaze() solves the maze for the shortest path avoiding too
+    // many mines, using the given search engine; the default is a modified
+    // version of Dijkstra's Algorithm. This solution is stored as an array
+    // of directions, as GridSpace direction codes, from start to end.
+    //
+    // Parameters:
+    // engine: the search algorithm to use.
+    public void solveMaze(SearchEngine engine) {
+        solveMaze(engine, MazeRules.STANDARD);
+    }
+
+    // solveMaze() solves the maze under the given rules: under the standard
+    // rules, for the shortest path, with the given search engine, and under
+    // any others, for the cheapest path, with a ResourceSearch.
+    //
+    // Parameters:
+    // engine: the search algorithm to use under the standard rules
+    // rules: the rules to solve the maze under.
+    public void solveMaze(SearchEngine engine, MazeRules rules) {
+        if(!rules.isStandard()){
+            solveUnder(rules);
+            return;
         }
+        this.rules = rules;
+        MazeSearch search = new MazeSearch(grid);
+        search.run(engine);
+        stale = false;
+        expanded = search.expanded();
+        queueOps = search.queueOps();
 
-        // once all nodes have been settled, the shortest path has been found.
-        // new string stack will hold directions for this path.
-        solution = new Stack<>();
-        // start with the end square
-        GridSpace end = grid.get(endrow).get(endcol);
+        // keep the directions of the path; it is empty if there is no path.
+        path = search.path();
+        // if the end was never reached, there is no path and the lives are untouched.
+        if(!search.found()){
+            lives = GridArray.LIVES;
+            return;
+        }
         // set the lives to be the number left on the end square
-        lives = end.lives;
-        // for each previous square in the chain, add the direction to get to the end
-        // from that square to the stack, then set the previous square as the new end
-        while(end.prev != null){
-            solution.push(end.dir);
-            end = end.prev;
+        lives = search.lives();
+    }
+
+    // solveUnder() solves the maze with a ResourceSearch, for rules other than
+    // the standard ones.
+    private void solveUnder(MazeRules rules){
+        ResourceSearch search = new ResourceSearch(grid, rules);
+        search.run();
+        this.rules = rules;
+        expanded = search.expanded();
+        queueOps = search.queueOps();
+        path = search.path();
+        lives = search.found() ? search.lives() : rules.lives;
+        // the grid's arrays are filled in with the path once a space is asked for.
+        stale = true;
+    }
+
+    // getPath() gives a copy of the directions of the solution, from start
+    // to end, as GridSpace direction codes.
+    public byte[] getPath(){
+        return path.clone();
+    }
+
+    // getLivesLeft() gives the number of lives left after taking the shortest path.
+    public int getLivesLeft(){
+        return lives;
+    }
+
+    // getQueueOps() gives the count of queue operations done to solve the maze.
+    public long getQueueOps(){
+        return queueOps;
+    }
+
+    // getHeight() gives the number of rows in the maze.
+    public int getHeight(){
+        return height;
+    }
+
+    // getWidth() gives the number of columns in the maze.
+    public int getWidth(){
+        return width;
+    }
+
+    // getExpanded() gives the count of search states expanded to solve the maze.
+    public int getExpanded(){
+        return expanded;
+    }
+
+    // treeFrom() searches the maze once out from a space, so the routes from
+    // it to any number of other spaces can be looked up.
+    //
+    // Parameters:
+    // row: the row of the space to start from
+    // col: the column of the space to start from
+    //
+    // Returns:
+    // SearchTree, the routes from that space.
+    public SearchTree treeFrom(int row, int col){
+        if(row < 0 || row >= height || col < 0 || col >= width){
+            throw new IllegalArgumentException("Space " + row + "," + col + " is not in the maze");
+        }
+        return new SearchTree(grid, row * width + col, false);
+    }
+
+    // treeFromStart() searches the maze once out from its start, so the
+    // routes from the start to any number of spaces can be looked up.
+    //
+    // Returns:
+    // SearchTree, the routes from the start.
+    public SearchTree treeFromStart(){
+        return new SearchTree(grid, grid.start, false);
+    }
+
+    // treeToEnd() searches the maze once back from the end, so the routes
+    // from any number of spaces to the end can be looked up.
+    //
+    // Returns:
+    // SearchTree, the routes to the end.
+    public SearchTree treeToEnd(){
+        return new SearchTree(grid, grid.end, true);
+    }
+
+    // toggleWall() opens or closes the wall on one side of a space, and the
+    // same wall as seen from the space on the other side, and solves the
+    // maze again. Only the part of the search the wall changes is redone.
+    //
+    // Parameters:
+    // row: the row of the space
+    // col: the column of the space
+    // dir: the side of the space: "up", "down", "left" or "right".
+    public void toggleWall(int row, int col, String dir){
+        int code = GridArray.code(dir);
+        int space = space(row, col);
+        int r = row + (code == GridSpace.DOWN ? 1 : code == GridSpace.UP ? -1 : 0);
+        int c = col + (code == GridSpace.RIGHT ? 1 : code == GridSpace.LEFT ? -1 : 0);
+        if(r < 0 || r >= height || c < 0 || c >= width){
+            throw new IllegalArgumentException("The " + dir + " wall of " + row + "," + col
+                    + " is on the outside of the maze");
+        }
+        edit().toggleWall(space, code);
+        resolve();
+    }
+
+    // setMine() puts a mine on a space, or takes one off it, and solves the
+    // maze again.
+    //
+    // Parameters:
+    // row: the row of the space
+    // col: the column of the space
+    // mine: whether the space should have a mine.
+    public void setMine(int row, int col, boolean mine){
+        edit().setMine(space(row, col), mine);
+        resolve();
+    }
+
+    // moveStart() moves the start to another space, and solves the maze again.
+    public void moveStart(int row, int col){
+        edit().moveStart(space(row, col));
+        resolve();
+    }
+
+    // moveEnd() moves the end to another space, and solves the maze again.
+    public void moveEnd(int row, int col){
+        edit().moveEnd(space(row, col));
+        resolve();
+    }
+
+    // space() numbers a space, checking that it is in the maze.
+    private int space(int row, int col){
+        if(row < 0 || row >= height || col < 0 || col >= width){
+            throw new IllegalArgumentException("Space " + row + "," + col + " is not in the maze");
         }
+        return row * width + col;
+    }
+
+    // edit() gives the search to edit the maze through, starting it at the
+    // first edit.
+    private DynamicSearch edit(){
+        if(!rules.isStandard()){
+            throw new IllegalStateException("Only a maze solved under the standard rules can be edited");
+        }
+        if(dynamic == null){
+            dynamic = new DynamicSearch(grid);
+        }
+        return dynamic;
+    }
+
+    // resolve() brings the solution up to date after an edit.
+    private void resolve(){
+        dynamic.solve();
+        expanded = dynamic.expanded();
+        path = dynamic.path();
+        lives = dynamic.found() ? dynamic.lives() : GridArray.LIVES;
+        // the grid's arrays are only filled in with the new path once a
+        // space is asked for, so an edit costs no more than the search.
+        stale = true;
+    }
+
+    // getSpace() gives a view of one space in the maze, as a GridSpace.
+    public GridSpace getSpace(int row, int col){
+        if(stale){
+            grid.record(path, rules);
+            stale = false;
+        }
+        return grid.getSpace(row, col);
+    }
+
+    // hasPath() tells whether the maze has any path from its start to its end
+    // that doesn't kill the player under the given rules, by flooding it with
+    // a Bitboard rather than searching it.
+    public boolean hasPath(MazeRules rules){
+        return new Bitboard(grid).reaches(rules.hits());
+    }
+
+    // isSolved() tells whether the maze has a solution: its path, or the start
+    // being the end already.
+    public boolean isSolved(){
+        return path.length > 0 || grid.start == grid.end;
+    }
+
+    // startsAtEnd() tells whether the numbers encoding a maze put its start
+    // and end on the same space, so that an empty path is still a solution.
+    public static boolean startsAtEnd(int[] nums, int count){
+        // as in the grid, the last start and end found count, and both are the
+        // first space if there are none.
+        int start = 2, end = 2;
+        for(int i = 2; i < count; i++){
+            if((nums[i] & GridSpace.START) != 0){
+                start = i;
+            }
+            if((nums[i] & GridSpace.END) != 0){
+                end = i;
+            }
+        }
+        return start == end;
     }
 
     // getSolution() prints the solution stored as directions from start to end.
+    // The solution is kept, so it can be printed again.
     public void getSolution(){
+        StringBuilder out = new StringBuilder();
+        writeSolution(out);
+        System.out.print(out);
+    }
+
+    // writeSolution() writes the solution as directions from start to end.
+    //
+    // Parameters:
+    // out: the StringBuilder to write the solution to.
+    public void writeSolution(StringBuilder out){
+        writeSolution(out, false);
+    }
+
+    // writeSolution() writes the solution as directions from start to end,
+    // optionally with runs of the same direction written once, with a count.
+    //
+    // Parameters:
+    // out: the StringBuilder to write the solution to.
+    // runLength: whether to write runs as 'right' x 57.
+    public void writeSolution(StringBuilder out, boolean runLength){
+        if(isSolved()){
+            writePath(out, path, runLength);
+        }
+        else{
+            writeNoPath(out);
+        }
+    }
+
+    // writePath() writes directions, given as GridSpace direction codes, the
+    // way a solution is written.
+    //
+    // Parameters:
+    // out: the StringBuilder to write the directions to.
+    // path: the directions, from start to end.
+    // runLength: whether to write runs of the same direction as 'right' x 57.
+    public static void writePath(StringBuilder out, byte[] path, boolean runLength){
+        writePath(out, path, path.length, runLength);
+    }
+
+    // writePath() writes the first length directions of an array, given as
+    // GridSpace direction codes, the way a solution is written.
+    //
+    // Parameters:
+    // out: the StringBuilder to write the directions to.
+    // path: the directions, from start to end, and maybe more after them.
+    // length: the count of directions to write.
+    // runLength: whether to write runs of the same direction as 'right' x 57.
+    public static void writePath(StringBuilder out, byte[] path, int length, boolean runLength){
         // the directions are enclosed in brackets and single quotes.
-        System.out.print("[");
-        // get the size of the stack
-        int num = solution.size();
-        // for each thing in the stack, print it and pop it out.
-        for(int i = 0; i < num; i++){
-            System.out.print("'" + solution.pop() + "'");
-            if(!solution.isEmpty()){
-                System.out.print(", ");
+        out.append('[');
+        for(int i = 0; i < length; i++){
+            // find how far the run of this direction goes, if runs are wanted.
+            int run = 1;
+            if(runLength){
+                while(i + run < length && path[i + run] == path[i]){
+                    run++;
+                }
+            }
+            out.append('\'').append(GridArray.name(path[i])).append('\'');
+            if(run > 1){
+                out.append(" x ").append(run);
+                i += run - 1;
+            }
+            if(i < length - 1){
+                out.append(", ");
             }
         }
         // closing bracket for the directions.
-        System.out.print("]\n\n");
+        out.append("]\n\n");
+    }
+
+    // writeNoPath() writes what is written in place of the directions for a
+    // maze with no path.
+    public static void writeNoPath(StringBuilder out){
+        out.append("No path\n\n");
     }
 
     // getLives() prints to the user the number of lives left after taking the shortest path.
     public void getLives(){
-        System.out.print("Lives left: " + this.lives + "\n\n\n");
+        StringBuilder out = new StringBuilder();
+        writeLives(out);
+        System.out.print(out);
     }
 
-    // getMaze() prints the maze graphically.
-    public void getMaze()
-    {
-        // print dots and dashes of "ceiling" of each row where appropriate
-        for(int row = 0; row < height; row++){
-            System.out.print("·");
-            for(int col = 0; col < width; col++){
-                if(!grid.get(row).get(col).up){System.out.print("---·");}
-                else{System.out.print("   ·");}
-            }
-            // move to the body of the row
-            System.out.print("\n");
-            // for each square in the row, print its walls
-            // and contents dependent on the GridSpace's properties
-            for(int col = 0; col < width; col++){
-                GridSpace square = grid.get(row).get(col);
-
-                if(!square.left){
-                    System.out.print("|");
-                }
-                else{
-                    System.out.print(" ");
-                }
+    // writeLives() writes the number of lives left after taking the shortest path.
+    public void writeLives(StringBuilder out){
+        writeLives(out, this.lives);
+    }
 
-                if(square.start){
-                    System.out.print(" S ");
-                }
-                else if(square.end){
-                    System.out.print(" E ");
-                }
-                else if(square.mine){
-                    System.out.print(" * ");
-                }
-                else{
-                    System.out.print("   ");
-                }
-            }
-            // right side wall of the maze for each row.
-            System.out.print("|\n");
+    // writeLives() writes a number of lives left the way a maze's are written.
+    public static void writeLives(StringBuilder out, int lives){
+        out.append("Lives left: ").append(lives).append("\n\n\n");
+    }
+
+    // getMaze() prints the maze graphically, a row at a time.
+    public void getMaze(){
+        try {
+            new MazeRenderer(grid, null).drawAll(System.out);
         }
-        // print the floor of the maze in dots and dashes.
-        System.out.print("·");
-        for(int i = 0; i < width; i++){System.out.print("---·");}
-        System.out.print("\n\n");
+        catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // writeMaze() writes the maze graphically.
+    public void writeMaze(StringBuilder out)
+    {
+        try {
+            new MazeRenderer(grid, null).drawAll(out);
+        }
+        catch(IOException e){
+            // a StringBuilder never throws it.
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // renderer() gives a MazeRenderer for drawing the maze, with or without
+    // its solution drawn over it.
+    public MazeRenderer renderer(boolean showPath){
+        return new MazeRenderer(grid, showPath ? path : null);
     }
-}
\ No newline at end of file
+}
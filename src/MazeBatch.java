@@ -0,0 +1,163 @@
+/*
+ * Class: MazeBatch
+ *
+ * This class solves the lines of a maze file on a pool of
+ * worker threads. Each line's numbers are built into a Maze and
+ * solved on a worker, which writes the text to print for it. The
+ * text is printed in the same order the lines were submitted, no
+ * matter which worker finishes first.
+ *
+ * The lines are read and parsed on the thread that submits them,
+ * by the MazeSource, not on the workers: turning a line into its
+ * numbers is one pass over its bytes, far less work than solving
+ * the maze, and the workers get a copy of the numbers to solve.
+ *
+ * Only a limited number of lines may be waiting or in progress
+ * at once; submitting another line past that limit first waits
+ * for the oldest one and prints it, so memory stays flat however
+ * long the file is.
+ *
+ * A batch can also share a pool of workers with other batches, as
+ * each request to MazeServer does; the pool is then left running
+ * when the batch is finished.
+ *
+ */
+
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class MazeBatch
+{
+    // Job is the work done on a worker for each line: it takes the
+    // maze's number in the file and the line's numbers, or the maze's
+    // bytes from a binary file, and writes the text to print for it.
+    public interface Job {
+        void solve(int index, int[] nums, int count, StringBuilder out);
+
+        void solve(int index, ByteBuffer maze, StringBuilder out);
+    }
+
+    private final ExecutorService pool;
+    // whether the pool was made for this batch alone, and is stopped with it.
+    private final boolean owned;
+    private final ArrayDeque<Future<StringBuilder>> pending = new ArrayDeque<>();
+    private final int limit;
+    private final Job job;
+    private final PrintWriter out;
+
+    // Parameters:
+    // threads: the number of worker threads
+    // job: the work to do for each line
+    // out: where to print the output
+    public MazeBatch(int threads, Job job, PrintWriter out){
+        this(Executors.newFixedThreadPool(threads), true, threads, job, out);
+    }
+
+    // Parameters:
+    // pool: the workers, shared with other batches
+    // threads: the number of threads in the pool
+    // job: the work to do for each line
+    // out: where to print the output
+    public MazeBatch(ExecutorService pool, int threads, Job job, PrintWriter out){
+        this(pool, false, threads, job, out);
+    }
+
+    private MazeBatch(ExecutorService pool, boolean owned, int threads, Job job, PrintWriter out){
+        this.pool = pool;
+        this.owned = owned;
+        // keep a few lines queued per worker so none of them sits idle
+        // while the oldest line is printed.
+        limit = threads * 4;
+        this.job = job;
+        this.out = out;
+    }
+
+    // submit() hands the numbers from one line of the maze file to the workers.
+    //
+    // Parameters:
+    // index: the number of the maze in the file, counting from 1
+    // nums: the numbers on the line encoding the maze; they are copied, so
+    // the array can be reused once this returns.
+    // count: the count of numbers on the line
+    public void submit(int index, int[] nums, int count){
+        if(pending.size() >= limit){
+            printOldest();
+        }
+        int[] copy = Arrays.copyOf(nums, count);
+        pending.add(pool.submit(() -> {
+            StringBuilder text = new StringBuilder();
+            job.solve(index, copy, count, text);
+            return text;
+        }));
+    }
+
+    // submit() hands one maze of a binary file to the workers, as its bytes.
+    // They are read in place from the file, so nothing is copied.
+    //
+    // Parameters:
+    // index: the number of the maze in the file, counting from 1
+    // maze: a buffer of the maze's own, as a MazeFile stores it.
+    public void submit(int index, ByteBuffer maze){
+        if(pending.size() >= limit){
+            printOldest();
+        }
+        pending.add(pool.submit(() -> {
+            StringBuilder text = new StringBuilder();
+            job.solve(index, maze, text);
+            return text;
+        }));
+    }
+
+    // finish() prints the rest of the lines and stops the workers.
+    public void finish(){
+        while(!pending.isEmpty()){
+            printOldest();
+        }
+        if(owned){
+            pool.shutdown();
+        }
+    }
+
+    // printOldest() waits for the oldest line to be solved and prints it.
+    private void printOldest(){
+        Future<StringBuilder> next = pending.remove();
+        try {
+            out.append(next.get());
+        }
+        // a failure on a worker is passed on just as it would be if the
+        // line had been solved here.
+        catch(ExecutionException e){
+            cancel();
+            if(e.getCause() instanceof RuntimeException){
+                throw (RuntimeException) e.getCause();
+            }
+            if(e.getCause() instanceof Error){
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        catch(InterruptedException e){
+            cancel();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // cancel() gives up on the lines still waiting, and stops the pool if it
+    // is this batch's own. Finishing the batch afterwards prints nothing more.
+    public void cancel(){
+        for(Future<StringBuilder> line: pending){
+            line.cancel(true);
+        }
+        pending.clear();
+        if(owned){
+            pool.shutdownNow();
+        }
+    }
+}
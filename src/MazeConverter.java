@@ -0,0 +1,82 @@
+/*
+ * Program: MazeConverter
+ *
+ * This program converts a maze file between the text format of
+ * mazes.txt and the binary format of MazeFile. The format of the
+ * input is found from the file itself, and the output is written
+ * in the other one:
+ *
+ * java MazeConverter mazes.txt mazes.bin
+ * java MazeConverter mazes.bin mazes.txt
+ *
+ * In the text written, each maze is one line, (height,width)-[codes].
+ *
+ */
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+public class MazeConverter {
+
+    public static void main(String[] args) {
+        if(args.length != 2){
+            System.err.println("Usage: java MazeConverter INPUT OUTPUT");
+            System.exit(2);
+        }
+        File input = new File(args[0]);
+        File output = new File(args[1]);
+        try {
+            int mazes;
+            if(MazeFile.isBinary(input)){
+                mazes = toText(input, output);
+            }
+            else{
+                try (MazeReader reader = new MazeReader(input)) {
+                    mazes = MazeFile.write(reader, output);
+                }
+            }
+            System.out.println("Converted " + mazes + " mazes to " + output);
+        }
+        catch(IOException | IllegalArgumentException e){
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // toText() writes the mazes of a binary file as lines of text.
+    //
+    // Parameters:
+    // input: the binary maze file
+    // output: the text file to write.
+    //
+    // Returns:
+    // int, the count of mazes written.
+    private static int toText(File input, File output) throws IOException {
+        int mazes = 0;
+        try (MazeFile in = new MazeFile(input);
+             Writer out = new BufferedWriter(new OutputStreamWriter(
+                     new FileOutputStream(output), StandardCharsets.UTF_8), 1 << 16)) {
+            StringBuilder line = new StringBuilder();
+            while(in.next()){
+                int[] nums = in.values();
+                line.setLength(0);
+                line.append('(').append(nums[0]).append(',').append(nums[1]).append(")-[");
+                for(int i = 2; i < in.count(); i++){
+                    if(i > 2){
+                        line.append(',');
+                    }
+                    line.append(nums[i]);
+                }
+                line.append("]\n");
+                out.append(line);
+                mazes++;
+            }
+        }
+        return mazes;
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Class: MazeFile
+ *
+ * This class reads and writes mazes in a compact binary format,
+ * one byte per space, which can be loaded again without parsing:
+ * bytes() hands each maze over as it sits in the mapped file, to
+ * be copied straight into a grid.
+ * The file is mapped into memory, and an index of where each maze
+ * starts lets any one of them be loaded without going through the
+ * ones before it.
+ *
+ * The file starts with a header:
+ *
+ * the 4 bytes MAZB
+ * int: the version of the format, 2
+ * int: the count of mazes
+ * long: the position of the index in the file
+ *
+ * followed by the mazes, each as an int height, an int width, and
+ * then one byte per space, row by row, with the GridSpace bit codes
+ * (UP=1, RIGHT=2, DOWN=4, LEFT=8, START=16, END=32, MINE=64). After
+ * the mazes comes the index: for each maze, a long position, and
+ * the spaces of its start and end as longs, numbered row * width
+ * + col, so they can be found without reading the maze. All numbers
+ * are big-endian.
+ *
+ * A file too large to map all at once has each maze mapped on its
+ * own as it is loaded.
+ *
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class MazeFile implements MazeSource
+{
+    private static final byte[] MAGIC = {'M', 'A', 'Z', 'B'};
+    private static final int VERSION = 2;
+    // the sizes of the file header and of the height and width of a maze.
+    private static final int HEADER = 4 + 4 + 4 + 8;
+    private static final int DIMENSIONS = 4 + 4;
+
+    private final FileChannel channel;
+    // the whole file, or null if it is too large to map at once.
+    private final ByteBuffer map;
+    private final long[] offsets;
+    // the start and end of each maze.
+    private final long[] starts, ends;
+    private int next;
+    // the current maze, positioned at its height, and whether its codes have
+    // been widened into values yet.
+    private ByteBuffer record;
+    private boolean widened;
+    private int[] values = new int[64];
+    private int count;
+
+    // Parameters:
+    // file: the binary maze file to read.
+    public MazeFile(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            map = size <= Integer.MAX_VALUE ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size) : null;
+            ByteBuffer header = region(0, HEADER);
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            int version = header.getInt();
+            if(!Arrays.equals(magic, MAGIC) || version != VERSION){
+                throw new IOException(file + " is not a binary maze file");
+            }
+            int mazes = header.getInt();
+            long index = header.getLong();
+            // each maze takes three longs in the index.
+            if(mazes < 0 || index < HEADER || index + 8L * 3 * mazes > size){
+                throw new IOException(file + " has a broken maze index");
+            }
+            offsets = new long[mazes];
+            starts = new long[mazes];
+            ends = new long[mazes];
+            LongBuffer entries = region(index, 8L * 3 * mazes).asLongBuffer();
+            for(int maze = 0; maze < mazes; maze++){
+                offsets[maze] = entries.get();
+                starts[maze] = entries.get();
+                ends[maze] = entries.get();
+            }
+        }
+        catch(IOException | RuntimeException e){
+            channel.close();
+            throw e;
+        }
+    }
+
+    // isBinary() tells whether a file is in this format, by its first bytes.
+    //
+    // Parameters:
+    // file: the file to check.
+    //
+    // Returns:
+    // boolean, true if the file starts with the binary format's magic bytes.
+    public static boolean isBinary(File file) throws IOException {
+        try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer start = ByteBuffer.allocate(MAGIC.length);
+            while(start.hasRemaining()){
+                if(in.read(start) < 0){
+                    return false;
+                }
+            }
+            return Arrays.equals(start.array(), MAGIC);
+        }
+    }
+
+    // open() opens a maze file in whichever format it is in.
+    //
+    // Parameters:
+    // file: the maze file, binary or text.
+    //
+    // Returns:
+    // MazeSource, a MazeFile for a binary file, or a MazeReader for text.
+    public static MazeSource open(File file) throws IOException {
+        return isBinary(file) ? new MazeFile(file) : new MazeReader(file);
+    }
+
+    // region() gives a buffer over part of the file.
+    private ByteBuffer region(long position, long length) throws IOException {
+        if(map != null){
+            ByteBuffer part = map.duplicate();
+            part.limit((int) (position + length)).position((int) position);
+            return part.slice();
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+    }
+
+    // maze() gives a buffer over one maze, positioned at its height.
+    private ByteBuffer maze(int maze) throws IOException {
+        ByteBuffer dimensions = region(offsets[maze], DIMENSIONS);
+        long cells = (long) dimensions.getInt(0) * dimensions.getInt(4);
+        return region(offsets[maze], DIMENSIONS + cells);
+    }
+
+    // height() gives the number of rows of a maze, given by its number in
+    // the file, counting from 0.
+    public int height(int maze) throws IOException {
+        return region(offsets[maze], DIMENSIONS).getInt(0);
+    }
+
+    // width() gives the number of columns of a maze, given by its number in
+    // the file, counting from 0.
+    public int width(int maze) throws IOException {
+        return region(offsets[maze], DIMENSIONS).getInt(4);
+    }
+
+    // start() gives the space of a maze's start, numbered row * width + col.
+    public long start(int maze){
+        return starts[maze];
+    }
+
+    // end() gives the space of a maze's end, numbered row * width + col.
+    public long end(int maze){
+        return ends[maze];
+    }
+
+    // read() copies a rectangle of one maze's space codes into an array,
+    // row by row, without reading the rest of the maze.
+    //
+    // Parameters:
+    // maze: the number of the maze in the file, counting from 0
+    // row: the top row of the rectangle
+    // col: the left column of the rectangle
+    // rows: the number of rows in the rectangle
+    // cols: the number of columns in the rectangle
+    // into: the array to copy the codes to.
+    public void read(int maze, int row, int col, int rows, int cols, byte[] into) throws IOException {
+        int width = width(maze);
+        long first = offsets[maze] + DIMENSIONS + (long) row * width + col;
+        for(int r = 0; r < rows; r++){
+            long position = first + (long) r * width;
+            if(map != null){
+                ByteBuffer line = map.duplicate();
+                line.position((int) position);
+                line.get(into, r * cols, cols);
+            }
+            else{
+                // without the whole file mapped, each row is read in place
+                // rather than mapping every one of them.
+                ByteBuffer line = ByteBuffer.wrap(into, r * cols, cols);
+                while(line.hasRemaining()){
+                    if(channel.read(line, position + line.position() - r * cols) < 0){
+                        throw new IOException("Maze file ends in the middle of a maze");
+                    }
+                }
+            }
+        }
+    }
+
+    // size() gives the count of mazes in the file.
+    public int size(){
+        return offsets.length;
+    }
+
+    // next() moves on to the next maze in the file. Its codes are only
+    // widened into numbers if values() is called for them.
+    @Override
+    public boolean next() throws IOException {
+        if(next == offsets.length){
+            record = null;
+            count = 0;
+            return false;
+        }
+        record = maze(next++);
+        count = 2 + record.remaining() - DIMENSIONS;
+        widened = false;
+        return true;
+    }
+
+    // values() gives the numbers of the current maze.
+    @Override
+    public int[] values(){
+        if(!widened && record != null){
+            if(count > values.length){
+                values = Arrays.copyOf(values, Math.max(count, values.length * 2));
+            }
+            ByteBuffer codes = record.duplicate();
+            values[0] = codes.getInt();
+            values[1] = codes.getInt();
+            for(int i = 2; i < count; i++){
+                values[i] = codes.get() & 0xFF;
+            }
+            widened = true;
+        }
+        return values;
+    }
+
+    // bytes() gives the current maze as it is stored in the file, read in
+    // place rather than copied.
+    @Override
+    public ByteBuffer bytes(){
+        return record == null ? null : record.duplicate();
+    }
+
+    // count() gives the count of numbers of the current maze.
+    @Override
+    public int count(){
+        return count;
+    }
+
+    // close() closes the file.
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // write() saves every maze read from a source to a binary file.
+    //
+    // Parameters:
+    // input: the mazes to save
+    // file: the file to write them to.
+    //
+    // Returns:
+    // int, the count of mazes saved.
+    public static int write(MazeSource input, File file) throws IOException {
+        // three longs for each maze: its position, its start and its end.
+        long[] index = new long[64 * 3];
+        int mazes = 0;
+        long position = HEADER;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            // the header is filled in once the count and the index are known.
+            out.write(new byte[HEADER]);
+            while(input.next()){
+                int[] nums = input.values();
+                if(!SolutionCache.fits(nums, input.count())){
+                    throw new IllegalArgumentException("Maze " + (mazes + 1) + " does not have all of its spaces");
+                }
+                if(mazes * 3 == index.length){
+                    index = Arrays.copyOf(index, index.length * 2);
+                }
+                int cells = nums[0] * nums[1];
+                out.writeInt(nums[0]);
+                out.writeInt(nums[1]);
+                // each code is kept in one byte, just as the grid keeps it. As
+                // when the maze is built, the last start and end found count,
+                // and both are the first space if there are none.
+                long start = 0, end = 0;
+                for(int i = 2; i < cells + 2; i++){
+                    out.write(nums[i]);
+                    if((nums[i] & GridSpace.START) != 0){
+                        start = i - 2;
+                    }
+                    if((nums[i] & GridSpace.END) != 0){
+                        end = i - 2;
+                    }
+                }
+                index[mazes * 3] = position;
+                index[mazes * 3 + 1] = start;
+                index[mazes * 3 + 2] = end;
+                mazes++;
+                position += DIMENSIONS + cells;
+            }
+            for(int i = 0; i < mazes * 3; i++){
+                out.writeLong(index[i]);
+            }
+        }
+        try (RandomAccessFile header = new RandomAccessFile(file, "rw")) {
+            header.write(MAGIC);
+            header.writeInt(VERSION);
+            header.writeInt(mazes);
+            header.writeLong(position);
+        }
+        return mazes;
+    }
+}
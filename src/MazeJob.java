@@ -0,0 +1,290 @@
+/*
+ * Class: MazeJob
+ *
+ * This class is the work done for each maze in the file: it takes
+ * the numbers read from the maze's line, solves the maze, and writes
+ * the text to print for it. It holds the options the user
+ * picked on the command line, and is shared by every maze in a run,
+ * whether they're solved one at a time or by a MazeBatch.
+ *
+ * If there is a SolutionCache, a maze already in it is not built or
+ * solved again; its saved solution is printed instead. The cache
+ * only holds solutions under the standard MazeRules, so it is not
+ * used when the mazes are solved under any others. The maze is
+ * only built to draw it, when the extra output is wanted, or to
+ * answer RouteQueries about it.
+ *
+ * Otherwise, under the standard rules, the maze is not built as a
+ * Maze at all: it is loaded into the SolverContext of the thread
+ * solving it and solved there, in arrays kept from the maze before.
+ * A maze from a binary file is loaded from its bytes as they are,
+ * unless it's to be cached, which needs it as numbers.
+ *
+ * The drawing is made by a MazeRenderer: in full for small mazes,
+ * as an overview for large ones, or only a window of each maze if
+ * one is given, with the path drawn over it if asked for.
+ *
+ * If asked to, each maze is first checked for a path with a
+ * Bitboard flood, and one with none is written as No path without
+ * being searched.
+ *
+ * If the run is being measured, the time each stage takes is saved
+ * to a MazeStats, along with the size of the maze and the work done
+ * to solve it.
+ *
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+public class MazeJob implements MazeBatch.Job
+{
+    private static final byte[] NO_PATH = new byte[0];
+
+    private final boolean extra, showPath, precheck, report, runLength;
+    // the top, left, rows and columns of the part of each maze to draw, or
+    // null to draw it all.
+    private final int[] window;
+    private final SearchEngine engine;
+    private final MazeRules rules;
+    private final SolutionCache cache;
+    private final RouteQueries queries;
+    private final MazeStats stats;
+    // the context each thread solves its mazes in, when they aren't built.
+    private final ThreadLocal<SolverContext> contexts = ThreadLocal.withInitial(SolverContext::new);
+
+    // Parameters:
+    // extra: whether to include the extra output
+    // showPath: whether to draw the path over the maze in the extra output
+    // window: the top, left, rows and columns of the part of each maze to
+    // draw in the extra output, or null to draw it all
+    // engine: the search algorithm to solve the mazes with
+    // rules: the rules to solve the mazes under
+    // precheck: whether to check each maze for a path before searching it
+    // report: whether to include the number of states expanded
+    // runLength: whether to write runs of the same direction once, with a count
+    // cache: the cache of solutions to use, or null for none
+    // queries: the route questions to answer, or null for none
+    // stats: where to save the measurements of each maze, or null to take none
+    public MazeJob(boolean extra, boolean showPath, int[] window, SearchEngine engine, MazeRules rules,
+                   boolean precheck, boolean report, boolean runLength, SolutionCache cache,
+                   RouteQueries queries, MazeStats stats){
+        this.extra = extra;
+        this.showPath = showPath;
+        this.window = window;
+        this.engine = engine;
+        this.rules = rules;
+        this.precheck = precheck;
+        this.report = report;
+        this.runLength = runLength;
+        this.cache = cache;
+        this.queries = queries;
+        this.stats = stats;
+    }
+
+    // solve() solves the maze read from one line of the file.
+    //
+    // Parameters:
+    // index: the number of the maze in the file, counting from 1
+    // nums: the numbers on the line encoding the maze
+    // count: the count of numbers on the line
+    // out: the StringBuilder to write the text to print for this maze to.
+    @Override
+    public void solve(int index, int[] nums, int count, StringBuilder out){
+        try {
+            // the clock is only read when the run is being measured.
+            MazeStats.Record record = stats == null ? null : new MazeStats.Record(index);
+            long mark = record == null ? 0 : System.nanoTime();
+
+            // look the maze up in the cache first, if there is one.
+            long hash = 0;
+            SolutionCache.Entry known = null;
+            boolean cached = cache != null && rules.isStandard() && SolutionCache.fits(nums, count);
+            if(cached){
+                hash = SolutionCache.hash(nums);
+                known = cache.get(nums, hash, engine);
+            }
+
+            boolean asked = queries != null && queries.has(index);
+            Maze myMaze = null;
+            byte[] path;
+            int lives;
+            int expanded = 0;
+            if(known != null){
+                path = known.path;
+                lives = known.lives;
+                if(extra || asked){
+                    myMaze = new Maze(nums, count, path, lives);
+                }
+                if(record != null){
+                    record.cached = true;
+                    record.build = System.nanoTime() - mark;
+                    mark = System.nanoTime();
+                }
+            }
+            else if(!extra && !asked && rules.isStandard()){
+                // nothing needs the maze once it's solved, so it's solved in
+                // this thread's context, in arrays kept from the maze before.
+                SolverContext context = contexts.get();
+                context.load(nums, count);
+                solveLoaded(context, record, mark, cached ? nums : null, hash, out);
+                return;
+            }
+            else{
+                // initialize the maze by passing the numbers in.
+                if(record == null && !precheck){
+                    myMaze = new Maze(nums, count, engine, rules);
+                }
+                else{
+                    // build the maze with an empty path first, so building and
+                    // solving it can be timed apart, and so it is only searched
+                    // once it's known to have a path.
+                    myMaze = new Maze(nums, count, NO_PATH, rules.lives);
+                    if(record != null){
+                        record.build = System.nanoTime() - mark;
+                        mark = System.nanoTime();
+                    }
+                    if(!precheck || myMaze.hasPath(rules)){
+                        myMaze.solveMaze(engine, rules);
+                    }
+                    if(record != null){
+                        record.solve = System.nanoTime() - mark;
+                        record.queueOps = myMaze.getQueueOps();
+                        mark = System.nanoTime();
+                    }
+                }
+                path = myMaze.getPath();
+                lives = myMaze.getLivesLeft();
+                expanded = myMaze.getExpanded();
+                if(cached){
+                    cache.put(nums, hash, engine, path, lives);
+                }
+            }
+
+            // if the user wants extra output, display the maze, or the part of it
+            // asked for.
+            if(extra) {
+                MazeRenderer renderer = myMaze.renderer(showPath);
+                if(window == null){
+                    renderer.draw(out);
+                }
+                else{
+                    renderer.drawWindow(out, window[0], window[1], window[2], window[3]);
+                }
+            }
+            // display maze solution, or that there is none.
+            if(path.length > 0 || Maze.startsAtEnd(nums, count)){
+                Maze.writePath(out, path, runLength);
+            }
+            else{
+                Maze.writeNoPath(out);
+            }
+            // if the user wants extra output, display the lives left after solution.
+            if(extra){
+                Maze.writeLives(out, lives);
+            }
+            // if the user picked an engine, display how much work it did.
+            if(report){
+                out.append("States expanded: ").append(expanded).append("\n\n\n");
+            }
+            // answer any route questions about this maze.
+            if(asked){
+                queries.write(index, myMaze, runLength, out);
+            }
+
+            if(record != null){
+                record.output = System.nanoTime() - mark;
+                record.cells = (long) nums[0] * nums[1];
+                record.expanded = expanded;
+                record.pathLength = path.length;
+                stats.add(record);
+            }
+        }
+        catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // solve() solves a maze of a binary file, given as its bytes. Unless it
+    // is to be drawn, cached, asked about or solved under other rules, its
+    // bytes are copied straight into this thread's context; otherwise they
+    // are widened into numbers and solved as a line of text would be.
+    //
+    // Parameters:
+    // index: the number of the maze in the file, counting from 1
+    // maze: the maze as a MazeFile stores it, positioned at its height
+    // out: the StringBuilder to write the text to print for this maze to.
+    @Override
+    public void solve(int index, ByteBuffer maze, StringBuilder out){
+        if(cache != null || extra || (queries != null && queries.has(index)) || !rules.isStandard()){
+            int[] nums = widen(maze);
+            solve(index, nums, nums.length, out);
+            return;
+        }
+        try {
+            MazeStats.Record record = stats == null ? null : new MazeStats.Record(index);
+            long mark = record == null ? 0 : System.nanoTime();
+            SolverContext context = contexts.get();
+            context.load(maze);
+            solveLoaded(context, record, mark, null, 0, out);
+        }
+        catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // solveLoaded() solves the maze loaded into a context and writes the text
+    // to print for it. No maze is built, so it is never drawn.
+    //
+    // Parameters:
+    // context: the context holding the maze
+    // record: where to save the measurements of the maze, or null
+    // mark: the time the maze started loading, if it's being measured
+    // nums: the numbers encoding the maze, to save its solution to the cache
+    // under, or null not to save it
+    // hash: the hash of the maze, if it's to be saved
+    // out: the StringBuilder to write the text to print for this maze to.
+    private void solveLoaded(SolverContext context, MazeStats.Record record, long mark, int[] nums, long hash,
+                             StringBuilder out) throws IOException {
+        if(record != null){
+            record.build = System.nanoTime() - mark;
+            mark = System.nanoTime();
+        }
+        if(!precheck || context.hasPath(rules)){
+            context.solve(engine);
+        }
+        if(record != null){
+            record.solve = System.nanoTime() - mark;
+            record.queueOps = context.queueOps();
+            mark = System.nanoTime();
+        }
+        if(nums != null){
+            cache.put(nums, hash, engine, context.path(), context.lives());
+        }
+        // the path is written straight from the search's buffer.
+        context.write(out, runLength);
+        if(report){
+            out.append("States expanded: ").append(context.expanded()).append("\n\n\n");
+        }
+        if(record != null){
+            record.output = System.nanoTime() - mark;
+            record.cells = (long) context.height() * context.width();
+            record.expanded = context.expanded();
+            record.pathLength = context.length();
+            stats.add(record);
+        }
+    }
+
+    // widen() gives the numbers encoding a maze stored as bytes: its height,
+    // its width, and then the code of each space.
+    private static int[] widen(ByteBuffer maze){
+        int[] nums = new int[2 + Math.max(0, maze.remaining() - 8)];
+        nums[0] = maze.getInt();
+        nums[1] = maze.getInt();
+        for(int i = 2; i < nums.length; i++){
+            nums[i] = maze.get() & 0xFF;
+        }
+        return nums;
+    }
+}
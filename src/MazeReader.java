@@ -0,0 +1,139 @@
+/*
+ * Class: MazeReader
+ *
+ * This class reads the maze file one line at a time, pulling out
+ * the numbers on each line the same way the pattern ([0-9]+) does:
+ * every run of digits is a number, and anything else between them
+ * is ignored.
+ *
+ * The file is read through a FileChannel into one fixed buffer, and
+ * digits are turned into numbers as they go by, straight into an
+ * int array that is reused from line to line. Nothing is allocated
+ * per number or per line, and a line can be any length, since a
+ * number cut off at the end of the buffer carries on when the next
+ * part of the file is read in.
+ *
+ * Lines with no numbers on them are skipped.
+ *
+ * The lines can also be read from any other channel, such as the
+ * body of a request to MazeServer.
+ *
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class MazeReader implements MazeSource
+{
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+    private int[] values = new int[64];
+    private int count;
+
+    // Parameters:
+    // file: the maze file to read.
+    public MazeReader(File file) throws IOException {
+        this(FileChannel.open(file.toPath(), StandardOpenOption.READ));
+    }
+
+    // Parameters:
+    // channel: the channel to read the maze lines from; it is closed along
+    // with the reader.
+    public MazeReader(ReadableByteChannel channel){
+        this.channel = channel;
+        // start with an empty buffer, so the first read fills it.
+        buffer.flip();
+    }
+
+    // next() reads the numbers on the next line of the file that has any.
+    //
+    // Returns:
+    // boolean, true if a line was read, or false at the end of the file.
+    @Override
+    public boolean next() throws IOException {
+        count = 0;
+        int num = 0;
+        boolean digits = false;
+        byte[] bytes = buffer.array();
+        while(true){
+            // once the buffer runs out, read the next part of the file into it.
+            if(!buffer.hasRemaining()){
+                buffer.clear();
+                int read = channel.read(buffer);
+                buffer.flip();
+                // at the end of the file, the last line ends with it.
+                if(read < 0){
+                    if(digits){
+                        add(num);
+                    }
+                    return count > 0;
+                }
+            }
+            int pos = buffer.position();
+            int limit = buffer.limit();
+            while(pos < limit){
+                int b = bytes[pos++];
+                // build up the number one digit at a time, checking that it
+                // still fits in an int.
+                if(b >= '0' && b <= '9'){
+                    if(num > (Integer.MAX_VALUE - (b - '0')) / 10){
+                        throw new NumberFormatException("Number too large on line");
+                    }
+                    num = num * 10 + (b - '0');
+                    digits = true;
+                    continue;
+                }
+                // anything else ends the number, if there was one.
+                if(digits){
+                    add(num);
+                    num = 0;
+                    digits = false;
+                }
+                // the end of a line that has numbers ends this read.
+                if((b == '\n' || b == '\r') && count > 0){
+                    buffer.position(pos);
+                    return true;
+                }
+            }
+            buffer.position(pos);
+        }
+    }
+
+    // add() saves a number from the line, growing the array if it's full.
+    private void add(int num){
+        if(count == values.length){
+            values = Arrays.copyOf(values, count * 2);
+        }
+        values[count++] = num;
+    }
+
+    // values() gives the numbers read from the current line. The array is
+    // reused for the next line, and may be longer than the count of numbers.
+    @Override
+    public int[] values(){
+        return values;
+    }
+
+    // count() gives the count of numbers read from the current line.
+    @Override
+    public int count(){
+        return count;
+    }
+
+    // bytes() gives null, since a text file only has the numbers.
+    @Override
+    public ByteBuffer bytes(){
+        return null;
+    }
+
+    // close() closes the file, or the channel.
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
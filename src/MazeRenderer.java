@@ -0,0 +1,226 @@
+/*
+ * Class: MazeRenderer
+ *
+ * This class draws a maze as text, a row at a time, into any
+ * Appendable: a StringBuilder, or a Writer or PrintStream, so that
+ * a large drawing goes out as it is made rather than being held
+ * whole first.
+ *
+ * A maze is drawn in full as it always has been: each space three
+ * characters wide between its walls, with S at the start, E at the
+ * end and * on each mine. A window of its rows and columns can be
+ * drawn the same way, to look at part of a maze too large to draw
+ * whole. If a path is given, it is drawn over the spaces it goes
+ * through, as the direction it leaves each one by (^, >, v or <),
+ * with X on each mine it steps on.
+ *
+ * draw() draws a maze of more than FULL_SIZE rows or columns as an
+ * overview instead, one character for each block of spaces, so it
+ * is never more than OVERVIEW_WIDTH characters wide or
+ * OVERVIEW_HEIGHT lines high: S and E for the blocks holding the
+ * start and end, X where the path steps on a mine, o where the
+ * path goes, and . anywhere else. Mines are left out, since at that
+ * scale nearly every block has one.
+ *
+ */
+
+import java.io.IOException;
+
+public class MazeRenderer
+{
+    // the most rows or columns of a maze draw() draws in full.
+    public static final int FULL_SIZE = 100;
+    // the most characters wide and lines high an overview is.
+    public static final int OVERVIEW_WIDTH = 80, OVERVIEW_HEIGHT = 40;
+    // the mark of a space where the path steps on a mine; the other marks
+    // are the direction the path leaves the space by.
+    private static final int HIT = 16;
+    // the marks of a block of an overview.
+    private static final int PATH = 1, PATH_HIT = 2;
+
+    private final GridArray grid;
+    private final byte[] path;
+
+    // Parameters:
+    // grid: the maze to draw
+    // path: the directions of the path to draw over it, from its start, as
+    // GridSpace direction codes, or null to draw the maze alone.
+    public MazeRenderer(GridArray grid, byte[] path){
+        this.grid = grid;
+        this.path = path;
+    }
+
+    // draw() draws the maze in full if it is no more than FULL_SIZE rows and
+    // columns, and as an overview if it is larger.
+    public void draw(Appendable out) throws IOException {
+        if(grid.height <= FULL_SIZE && grid.width <= FULL_SIZE){
+            drawAll(out);
+        }
+        else{
+            drawOverview(out);
+        }
+    }
+
+    // drawAll() draws the whole maze in full.
+    public void drawAll(Appendable out) throws IOException {
+        drawRows(out, 0, 0, grid.height, grid.width);
+    }
+
+    // drawWindow() draws part of the maze in full, below a line telling which
+    // part it is. A window reaching past the maze is cut off at its edges.
+    //
+    // Parameters:
+    // out: where to draw it
+    // top, left: the row and column of the window's top left space
+    // rows, cols: the number of rows and columns in the window.
+    public void drawWindow(Appendable out, int top, int left, int rows, int cols) throws IOException {
+        if(top < 0 || left < 0 || rows < 1 || cols < 1){
+            throw new IllegalArgumentException("A window needs a top and left of at least 0 and a size of at least 1");
+        }
+        int bottom = (int) Math.min(grid.height, (long) top + rows);
+        int right = (int) Math.min(grid.width, (long) left + cols);
+        if(top >= bottom || left >= right){
+            out.append("The window is outside the " + grid.height + "x" + grid.width + " maze\n\n");
+            return;
+        }
+        out.append("Rows " + top + " to " + (bottom - 1) + ", columns " + left + " to " + (right - 1)
+                + " of " + grid.height + "x" + grid.width + ":\n");
+        drawRows(out, top, left, bottom, right);
+    }
+
+    // drawRows() draws the spaces from row top and column left up to, but not
+    // including, row bottom and column right, a row at a time.
+    private void drawRows(Appendable out, int top, int left, int bottom, int right) throws IOException {
+        int width = grid.width;
+        byte[] marks = marks(top, left, bottom, right);
+        StringBuilder line = new StringBuilder((right - left) * 8 + 4);
+        for(int row = top; row < bottom; row++){
+            // the "ceiling" of the row, with a gap wherever a space opens up.
+            line.append("·");
+            for(int col = left; col < right; col++){
+                line.append(grid.has(row * width + col, GridSpace.UP) ? "   ·" : "---·");
+            }
+            line.append('\n');
+            // the body of the row: each space's left wall and what's in it.
+            for(int col = left; col < right; col++){
+                int space = row * width + col;
+                line.append(grid.has(space, GridSpace.LEFT) ? ' ' : '|');
+                line.append(body(space, marks[(row - top) * (right - left) + col - left]));
+            }
+            // the right side wall of the maze, or the wall of the space just past
+            // the window.
+            boolean open = right < width && grid.has(row * width + right, GridSpace.LEFT);
+            line.append(open ? ' ' : '|').append('\n');
+            out.append(line);
+            line.setLength(0);
+        }
+        // the floor of the maze, or the ceiling of the row just below the window.
+        line.append("·");
+        for(int col = left; col < right; col++){
+            boolean open = bottom < grid.height && grid.has(bottom * width + col, GridSpace.UP);
+            line.append(open ? "   ·" : "---·");
+        }
+        line.append("\n\n");
+        out.append(line);
+    }
+
+    // body() gives the three characters drawn inside a space.
+    private String body(int space, int mark){
+        if(grid.has(space, GridSpace.START)){
+            return " S ";
+        }
+        if(grid.has(space, GridSpace.END)){
+            return " E ";
+        }
+        if((mark & HIT) != 0){
+            return " X ";
+        }
+        switch(mark){
+            case GridSpace.UP: return " ^ ";
+            case GridSpace.RIGHT: return " > ";
+            case GridSpace.DOWN: return " v ";
+            case GridSpace.LEFT: return " < ";
+            default: break;
+        }
+        return grid.has(space, GridSpace.MINE) ? " * " : "   ";
+    }
+
+    // marks() follows the path, if there is one, and marks each space of a
+    // window that it goes through.
+    //
+    // Returns:
+    // byte[], the mark of each space of the window, row by row.
+    private byte[] marks(int top, int left, int bottom, int right){
+        int cols = right - left;
+        byte[] marks = new byte[(bottom - top) * cols];
+        if(path == null){
+            return marks;
+        }
+        int space = grid.start;
+        for(byte dir: path){
+            int row = space / grid.width, col = space % grid.width;
+            if(row >= top && row < bottom && col >= left && col < right){
+                marks[(row - top) * cols + col - left] |= dir;
+            }
+            space += grid.step(dir);
+            row = space / grid.width;
+            col = space % grid.width;
+            if(grid.has(space, GridSpace.MINE) && row >= top && row < bottom && col >= left && col < right){
+                marks[(row - top) * cols + col - left] |= HIT;
+            }
+        }
+        return marks;
+    }
+
+    // drawOverview() draws the maze as an overview, one character for each
+    // block of spaces, below a line telling how large the blocks are.
+    public void drawOverview(Appendable out) throws IOException {
+        int height = grid.height, width = grid.width;
+        // the blocks are as small as they can be for the overview to fit.
+        int tall = Math.max(1, (height + OVERVIEW_HEIGHT - 1) / OVERVIEW_HEIGHT);
+        int wide = Math.max(1, (width + OVERVIEW_WIDTH - 1) / OVERVIEW_WIDTH);
+        int rows = (height + tall - 1) / tall;
+        int cols = (width + wide - 1) / wide;
+
+        // there are few enough blocks to mark the path in all of them first.
+        byte[] blocks = new byte[rows * cols];
+        if(path != null){
+            int space = grid.start;
+            for(byte dir: path){
+                space += grid.step(dir);
+                int block = space / width / tall * cols + space % width / wide;
+                blocks[block] |= grid.has(space, GridSpace.MINE) ? PATH_HIT : PATH;
+            }
+        }
+        int start = grid.start / width / tall * cols + grid.start % width / wide;
+        int end = grid.end / width / tall * cols + grid.end % width / wide;
+
+        out.append("Overview of " + height + "x" + width + ", one character for each "
+                + tall + "x" + wide + " spaces:\n");
+        StringBuilder line = new StringBuilder(cols + 1);
+        for(int band = 0; band < rows; band++){
+            for(int c = 0; c < cols; c++){
+                int block = band * cols + c;
+                if(block == start){
+                    line.append('S');
+                }
+                else if(block == end){
+                    line.append('E');
+                }
+                else if((blocks[block] & PATH_HIT) != 0){
+                    line.append('X');
+                }
+                else if(blocks[block] != 0){
+                    line.append('o');
+                }
+                else{
+                    line.append('.');
+                }
+            }
+            line.append('\n');
+            out.append(line);
+            line.setLength(0);
+        }
+        out.append('\n');
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Class: MazeRules
+ *
+ * This class holds the rules a maze is solved under: the lives the
+ * player starts with, the lives a mine takes, and what it costs to
+ * move into each space. The standard rules, STANDARD, are 3 lives,
+ * 1 life a mine, and 1 a step, which every SearchEngine solves
+ * under; any other rules are solved by ResourceSearch.
+ *
+ * Moving into a space costs the step cost, or the mine cost if the
+ * space has a mine, unless a cost is given for each space on its
+ * own. Every cost is at least 1, and the player can start with
+ * from 1 up to MAX_LIVES lives.
+ *
+ */
+
+public class MazeRules
+{
+    // the most lives the player can start with.
+    public static final int MAX_LIVES = 20;
+    // the most moving into one space can cost.
+    public static final int MAX_COST = 1 << 16;
+    // the rules every SearchEngine solves mazes under.
+    public static final MazeRules STANDARD = new MazeRules(GridArray.LIVES, 1, 1, 1);
+
+    public final int lives, damage;
+    private final int stepCost, mineCost;
+    // the cost of moving into each space, or null to go by the step and mine costs.
+    private final int[] costs;
+
+    // Parameters:
+    // lives: the lives the player starts with
+    // damage: the lives a mine takes
+    // stepCost: the cost of moving into a space without a mine
+    // mineCost: the cost of moving into a space with a mine.
+    public MazeRules(int lives, int damage, int stepCost, int mineCost){
+        this(lives, damage, stepCost, mineCost, null);
+    }
+
+    // Parameters:
+    // lives: the lives the player starts with
+    // damage: the lives a mine takes
+    // costs: the cost of moving into each space, numbered row * width + col.
+    public MazeRules(int lives, int damage, int[] costs){
+        this(lives, damage, 1, 1, costs.clone());
+    }
+
+    private MazeRules(int lives, int damage, int stepCost, int mineCost, int[] costs){
+        if(lives < 1 || lives > MAX_LIVES){
+            throw new IllegalArgumentException("Lives must be from 1 to " + MAX_LIVES + ": " + lives);
+        }
+        if(damage < 0){
+            throw new IllegalArgumentException("A mine can't give lives back: " + damage);
+        }
+        checkCost(stepCost);
+        checkCost(mineCost);
+        if(costs != null){
+            for(int cost: costs){
+                checkCost(cost);
+            }
+        }
+        this.lives = lives;
+        this.damage = damage;
+        this.stepCost = stepCost;
+        this.mineCost = mineCost;
+        this.costs = costs;
+    }
+
+    // checkCost() makes sure a cost is one the search can handle.
+    private static void checkCost(int cost){
+        if(cost < 1 || cost > MAX_COST){
+            throw new IllegalArgumentException("Costs must be from 1 to " + MAX_COST + ": " + cost);
+        }
+    }
+
+    // cost() gives the cost of moving into a space of a grid.
+    public int cost(GridArray grid, int space){
+        if(costs != null){
+            return costs[space];
+        }
+        return grid.has(space, GridSpace.MINE) ? mineCost : stepCost;
+    }
+
+    // maxCost() gives the most moving into any one space can cost.
+    public int maxCost(){
+        if(costs == null){
+            return Math.max(stepCost, mineCost);
+        }
+        int most = 1;
+        for(int cost: costs){
+            most = Math.max(most, cost);
+        }
+        return most;
+    }
+
+    // hits() gives the most mines the player can step on and live.
+    public int hits(){
+        return damage == 0 ? Integer.MAX_VALUE : (lives - 1) / damage;
+    }
+
+    // fits() tells whether these rules can be used on a grid: costs given
+    // for each space must be given for every space of it.
+    public boolean fits(GridArray grid){
+        return costs == null || costs.length == grid.size();
+    }
+
+    // isStandard() tells whether these are the standard rules.
+    public boolean isStandard(){
+        return lives == GridArray.LIVES && damage == 1 && stepCost == 1 && mineCost == 1 && costs == null;
+    }
+}
@@ -0,0 +1,660 @@
+/*
+ * Class: MazeSearch
+ *
+ * This class searches a GridArray for the shortest path from
+ * its start to its end that doesn't kill the player, using one
+ * of the SearchEngine algorithms. Among the shortest paths, it
+ * finds one with the most lives left.
+ *
+ * Every engine searches over (space, lives left) states, so a
+ * path with more lives left is never dropped because a shorter
+ * path with fewer lives got to the same space first. A state is
+ * only taken further if its space has not already been reached,
+ * at no greater distance, with at least as many lives.
+ *
+ * The path found is kept as an array of direction codes, using
+ * the GridSpace bit codes, along with the lives left at the end,
+ * the count of states the engine expanded to find it, and the count
+ * of queue operations it took.
+ *
+ * A MazeSearch can be run again and again, as the grid under it is
+ * changed or resized for other mazes; its queues, the distances A*
+ * and the bidirectional search keep, and the buffer the path is
+ * traced into are kept from one run to the next, and only grow when
+ * a run needs more room.
+ *
+ */
+
+import java.util.Arrays;
+
+public class MazeSearch
+{
+    private static final int LIVES = GridArray.LIVES;
+    private static final byte[] NO_PATH = new byte[0];
+
+    private final GridArray grid;
+    // the queue dijkstra() searches with, kept for the next run.
+    private final IntQueue queue = new IntQueue(16);
+    // the two queues astar() and bidirectional() search with, and the
+    // distance of each state from the start and, going back, from the end,
+    // kept for the next run.
+    private final IntQueue near = new IntQueue(16), far = new IntQueue(16);
+    private int[] forward = new int[0], backward = new int[0];
+    // the backward side's directions for each state, and the most lives
+    // each space can spare.
+    private byte[] back = NO_PATH, backBest = NO_PATH;
+    private final int[] meeting = new int[4];
+    // the parallel engine's search, made the first time it is run, and kept
+    // along with its arrays for the next run.
+    private ParallelSearch parallel;
+    // for each space, how the first solver's order reached it: the lives
+    // left times 16 plus the direction into it, or 0 if not reached.
+    private byte[] first = NO_PATH;
+    // the path found is the first length directions of path, which may be
+    // steps, the buffer paths are traced into.
+    private byte[] path = NO_PATH, steps = NO_PATH;
+    private int length;
+    private boolean found;
+    private int lives, expanded;
+    private long queueOps;
+
+    // Parameters:
+    // grid: the maze to search.
+    public MazeSearch(GridArray grid){
+        this.grid = grid;
+    }
+
+    // run() searches the maze with the given engine. Afterwards, the
+    // grid's arrays describe the path found, for GridArray.getSpace().
+    //
+    // Parameters:
+    // engine: the search algorithm to use.
+    public void run(SearchEngine engine){
+        grid.reset();
+        path = NO_PATH;
+        length = 0;
+        found = false;
+        lives = 0;
+        expanded = 0;
+        queueOps = 0;
+        switch(engine){
+            case ASTAR:
+                astar();
+                break;
+            case BIDIRECTIONAL:
+                bidirectional();
+                break;
+            case PARALLEL:
+                parallel();
+                break;
+            case CORRIDORS:
+                corridors();
+                break;
+            default:
+                dijkstra();
+                break;
+        }
+    }
+
+    // found() tells whether the last search found a path.
+    public boolean found(){
+        return found;
+    }
+
+    // path() gives the directions of the path found, from start to end, as
+    // GridSpace direction codes. It is empty if there is no path.
+    public byte[] path(){
+        // the buffer is copied out, since the next run writes over it.
+        return path == steps ? Arrays.copyOf(path, length) : path;
+    }
+
+    // directions() gives the directions of the path found without copying
+    // them: only the first length() of them count, and they are only good
+    // until the next run.
+    byte[] directions(){
+        return path;
+    }
+
+    // length() gives the number of steps in the path found.
+    int length(){
+        return length;
+    }
+
+    // lives() gives the lives left at the end of the path found.
+    public int lives(){
+        return lives;
+    }
+
+    // expanded() gives the count of states the last search expanded.
+    public int expanded(){
+        return expanded;
+    }
+
+    // queueOps() gives the count of states the last search put in and took
+    // out of its queues.
+    public long queueOps(){
+        return queueOps;
+    }
+
+    // dijkstra() searches outward from the start. Since every step costs 1,
+    // the priority queue is a plain FIFO queue: states come out in order of
+    // distance, one bucket per distance. Once the end space is reached, the
+    // rest of the current distance is finished so that the path with the
+    // most lives left among the shortest is kept. The path is then checked
+    // against the one the first solver would have picked, with original().
+    private void dijkstra(){
+        int goal = grid.end;
+        queue.clear();
+        long before = queue.operations();
+        queue.add(begin());
+
+        // layer counts the states left at the current distance.
+        int layer = queue.size();
+        while(!queue.isEmpty()){
+            if(layer == 0){
+                if(grid.lives[goal] != 0){
+                    break;
+                }
+                layer = queue.size();
+            }
+            layer--;
+            int state = queue.remove();
+            int space = state / LIVES;
+            int left = state % LIVES + 1;
+            expanded++;
+
+            // evaluate each open neighbor; ties between equally short paths
+            // are broken in the order up, left, right, down.
+            if(grid.has(space, GridSpace.UP)){
+                visit(space - grid.width, GridSpace.UP, left, queue);
+            }
+            if(grid.has(space, GridSpace.LEFT)){
+                visit(space - 1, GridSpace.LEFT, left, queue);
+            }
+            if(grid.has(space, GridSpace.RIGHT)){
+                visit(space + 1, GridSpace.RIGHT, left, queue);
+            }
+            if(grid.has(space, GridSpace.DOWN)){
+                visit(space + grid.width, GridSpace.DOWN, left, queue);
+            }
+        }
+        finish(goal, grid.lives[goal]);
+        if(found && length > 0){
+            original(goal, length, lives);
+        }
+        queueOps = queue.operations() - before;
+    }
+
+    // original() goes over the maze in the order Maze.solveMaze() first did,
+    // and takes its path in place of the one found if it is as short and
+    // keeps as many lives, so mazes that solver got right are answered with
+    // the same directions as ever. It settled spaces, not states: each space
+    // kept the first safe way into it, from the spaces in the order they
+    // were settled, with the ways out of each one taken in the order of the
+    // spaces they lead to, row by row. Any shorter path it might have found
+    // is no better, so it only goes as far as the length of the path found.
+    // A DynamicSearch asks it too, so its paths come out the same.
+    //
+    // Parameters:
+    // goal: the end space
+    // length: the length of the shortest path, at least 1
+    // lives: the most lives left at the end of a path that short.
+    //
+    // Returns:
+    // byte[], the buffer holding the first solver's path in its first length
+    // directions, or null if its path would have been worse.
+    byte[] original(int goal, int length, int lives){
+        if(first.length < grid.size()){
+            first = new byte[Math.max(grid.size(), first.length * 2)];
+        }
+        Arrays.fill(first, 0, grid.size(), (byte) 0);
+        queue.clear();
+        first[grid.start] = (byte) (LIVES << 4);
+        queue.add(grid.start);
+
+        int dist = 0;
+        int layer = queue.size();
+        while(!queue.isEmpty() && first[goal] == 0){
+            if(layer == 0){
+                if(++dist == length){
+                    return null;
+                }
+                layer = queue.size();
+            }
+            layer--;
+            int space = queue.remove();
+            int left = first[space] >> 4;
+            if(grid.has(space, GridSpace.UP)){
+                reach(space - grid.width, GridSpace.UP, left);
+            }
+            if(grid.has(space, GridSpace.LEFT)){
+                reach(space - 1, GridSpace.LEFT, left);
+            }
+            if(grid.has(space, GridSpace.RIGHT)){
+                reach(space + 1, GridSpace.RIGHT, left);
+            }
+            if(grid.has(space, GridSpace.DOWN)){
+                reach(space + grid.width, GridSpace.DOWN, left);
+            }
+        }
+        // the end is reached a step after the last distance expanded.
+        if(first[goal] == 0 || dist + 1 != length || first[goal] >> 4 != lives){
+            return null;
+        }
+        // take its path, and fill it into the grid's arrays, so they describe it.
+        if(steps.length < length){
+            steps = new byte[Math.max(length, steps.length * 2)];
+        }
+        for(int space = goal, i = length - 1; i >= 0; i--){
+            int dir = first[space] & 0xF;
+            steps[i] = (byte) dir;
+            grid.via[GridArray.state(space, first[space] >> 4)] = (byte) dir;
+            space -= grid.step(dir);
+        }
+        return steps;
+    }
+
+    // reach() saves the first safe way found into a space, as original()
+    // goes over the maze, and queues the space.
+    //
+    // Parameters:
+    // space: the space being moved into
+    // dir: the direction of the move
+    // left: the lives left before the move.
+    private void reach(int space, int dir, int left){
+        if(first[space] != 0){
+            return;
+        }
+        if(grid.has(space, GridSpace.MINE)){
+            if(left == 1){
+                return;
+            }
+            left--;
+        }
+        first[space] = (byte) (left << 4 | dir);
+        queue.add(space);
+    }
+
+    // parallel() searches outward from the start like dijkstra(), but
+    // expands each distance on many threads at once, with a ParallelSearch.
+    private void parallel(){
+        if(parallel == null){
+            parallel = new ParallelSearch(grid);
+        }
+        ParallelSearch search = parallel;
+        search.run();
+        expanded = search.expanded();
+        queueOps = search.frontierOps();
+        finish(grid.end, grid.lives[grid.end]);
+    }
+
+    // corridors() searches only the junctions of the maze, with the grid's
+    // CorridorGraph, and then fills the grid in with the path found.
+    private void corridors(){
+        CorridorGraph graph = grid.corridors();
+        // open rooms are mostly junctions, and have no corridors to skip
+        // through, so Dijkstra is quicker on them.
+        if(graph.junctions() * 2L > grid.size()){
+            dijkstra();
+            return;
+        }
+        graph.run();
+        expanded = graph.expanded();
+        queueOps = graph.queueOps();
+        if(!graph.found()){
+            return;
+        }
+        found = true;
+        lives = graph.lives();
+        path = graph.path();
+        length = path.length;
+        grid.record(path);
+    }
+
+    // visit() queues the state reached by moving into a space, if it is safe
+    // and the space has not already been reached with as many lives.
+    //
+    // Parameters:
+    // space: the space being moved into
+    // dir: the direction of the move
+    // left: the lives left before the move
+    // queue: the queue of states to evaluate
+    private void visit(int space, int dir, int left, IntQueue queue){
+        // if the neighbor has a mine, moving there costs a life, and it's only
+        // safe if the player has a life to spare.
+        if(grid.has(space, GridSpace.MINE)){
+            left--;
+        }
+        if(left < 1 || left <= grid.lives[space]){
+            return;
+        }
+        grid.lives[space] = (byte) left;
+        grid.via[GridArray.state(space, left)] = (byte) dir;
+        queue.add(GridArray.state(space, left));
+    }
+
+    // astar() searches toward the end first. Each state is ranked by its
+    // distance from the start plus its Manhattan distance to the end, which
+    // never overestimates the distance left. Each step changes that rank by
+    // 0 or 2, so only two buckets are needed: the current rank, taken
+    // newest first so the search runs straight on when it can, and the next.
+    private void astar(){
+        int goal = grid.end;
+        // g holds the shortest distance found so far to each state. A state
+        // is only settled when it is taken out of a bucket, once its distance
+        // can no longer improve.
+        forward = unreached(forward, grid.size() * LIVES);
+        int[] g = forward;
+        IntQueue now = near, later = far;
+        now.clear();
+        later.clear();
+        long before = now.operations() + later.operations();
+        int first = GridArray.state(grid.start, LIVES);
+        g[first] = 0;
+        grid.via[first] = GridSpace.START;
+        now.add(first);
+
+        int rank = estimate(grid.start);
+        boolean reached = false;
+        while(true){
+            // once the current rank runs out, move on to the next one, unless
+            // the end has been reached: every state that could reach it at the
+            // same distance had the same rank.
+            if(now.isEmpty()){
+                if(reached || later.isEmpty()){
+                    break;
+                }
+                IntQueue swap = now;
+                now = later;
+                later = swap;
+                rank += 2;
+            }
+            int state = now.removeLast();
+            int space = state / LIVES;
+            int left = state % LIVES + 1;
+            // skip states whose distance has since improved, and states whose
+            // space was settled with at least as many lives.
+            if(g[state] + estimate(space) != rank || left <= grid.lives[space]){
+                continue;
+            }
+            grid.lives[space] = (byte) left;
+            expanded++;
+            if(space == goal){
+                reached = true;
+                continue;
+            }
+
+            for(int dir = GridSpace.UP; dir <= GridSpace.LEFT; dir <<= 1){
+                if(!grid.has(space, dir)){
+                    continue;
+                }
+                int next = space + grid.step(dir);
+                int nextLeft = grid.has(next, GridSpace.MINE) ? left - 1 : left;
+                if(nextLeft < 1 || nextLeft <= grid.lives[next]){
+                    continue;
+                }
+                int nextState = GridArray.state(next, nextLeft);
+                if(g[state] + 1 < g[nextState]){
+                    g[nextState] = g[state] + 1;
+                    grid.via[nextState] = (byte) dir;
+                    if(g[nextState] + estimate(next) == rank){
+                        now.add(nextState);
+                    }
+                    else{
+                        later.add(nextState);
+                    }
+                }
+            }
+        }
+        queueOps = now.operations() + later.operations() - before;
+        finish(goal, grid.lives[goal]);
+    }
+
+    // estimate() gives the Manhattan distance from a space to the end.
+    private int estimate(int space){
+        return Math.abs(space / grid.width - grid.end / grid.width)
+                + Math.abs(space % grid.width - grid.end % grid.width);
+    }
+
+    // bidirectional() searches out from the start and back from the end at
+    // once, a whole distance at a time, always growing the side with fewer
+    // states waiting. Going back from the end, a state counts its spare lives:
+    // the full lives, less one for each mine between its space and the end.
+    // Each time a state is reached, it is checked against the other side's
+    // states for the same space. Once both sides together have covered the
+    // length of the best path found, no shorter one can be left.
+    private void bidirectional(){
+        int size = grid.size() * LIVES;
+        // the forward side keeps its directions in the grid; the backward side
+        // keeps its own, along with the distance of each state on both sides.
+        int[] forward = this.forward = unreached(this.forward, size);
+        int[] backward = this.backward = unreached(this.backward, size);
+        if(back.length < size){
+            back = new byte[Math.max(size, back.length * 2)];
+            backBest = new byte[back.length / LIVES];
+        }
+        byte[] back = this.back;
+        byte[] backBest = this.backBest;
+        Arrays.fill(backBest, 0, grid.size(), (byte) 0);
+
+        IntQueue ahead = near, behind = far;
+        ahead.clear();
+        behind.clear();
+        long before = ahead.operations() + behind.operations();
+        int first = begin();
+        forward[first] = 0;
+        ahead.add(first);
+        int last = GridArray.state(grid.end, LIVES);
+        backward[last] = 0;
+        back[last] = GridSpace.END;
+        backBest[grid.end] = LIVES;
+        behind.add(last);
+
+        // meeting holds the best path found so far: its length, its lives
+        // left, and the forward and backward states it meets at.
+        int[] meeting = this.meeting;
+        meeting[0] = GridArray.UNREACHED;
+        meeting[1] = 0;
+        meeting[2] = -1;
+        meeting[3] = -1;
+        if(grid.start == grid.end){
+            meet(first, last, forward, backward, meeting);
+        }
+        int aheadDepth = 0;
+        int behindDepth = 0;
+        while(!ahead.isEmpty() && !behind.isEmpty() && meeting[0] > aheadDepth + behindDepth){
+            if(ahead.size() <= behind.size()){
+                for(int count = ahead.size(); count > 0; count--){
+                    expandForward(ahead.remove(), forward, backward, ahead, meeting);
+                }
+                aheadDepth++;
+            }
+            else{
+                for(int count = behind.size(); count > 0; count--){
+                    expandBackward(behind.remove(), forward, backward, back, backBest, behind, meeting);
+                }
+                behindDepth++;
+            }
+        }
+        queueOps = ahead.operations() + behind.operations() - before;
+        if(meeting[2] < 0){
+            return;
+        }
+
+        // join the two halves: the forward half traced back from the meeting
+        // space, then the backward half followed on to the end.
+        int space = meeting[2] / LIVES;
+        int left = meeting[2] % LIVES + 1;
+        int half = trace(space, left);
+        int spare = meeting[3] % LIVES + 1;
+        if(steps.length < meeting[0]){
+            steps = Arrays.copyOf(steps, Math.max(meeting[0], steps.length * 2));
+        }
+        path = steps;
+        length = meeting[0];
+        for(int i = half; i < length; i++){
+            int dir = back[GridArray.state(space, spare)];
+            path[i] = (byte) dir;
+            space += grid.step(dir);
+            if(grid.has(space, GridSpace.MINE)){
+                spare++;
+            }
+        }
+        found = true;
+        lives = meeting[1];
+        // the grid describes the path found, in place of whatever the two
+        // sides left there.
+        grid.record(path, length);
+    }
+
+    // unreached() gives an array of at least size distances, the first size
+    // of them unreached, growing the one given only if it is too small.
+    private static int[] unreached(int[] distances, int size){
+        if(distances.length < size){
+            distances = new int[Math.max(size, distances.length * 2)];
+        }
+        Arrays.fill(distances, 0, size, GridArray.UNREACHED);
+        return distances;
+    }
+
+    // expandForward() moves on from one state of the forward side.
+    private void expandForward(int state, int[] forward, int[] backward, IntQueue ahead, int[] meeting){
+        int space = state / LIVES;
+        int left = state % LIVES + 1;
+        expanded++;
+        for(int dir = GridSpace.UP; dir <= GridSpace.LEFT; dir <<= 1){
+            if(!grid.has(space, dir)){
+                continue;
+            }
+            int next = space + grid.step(dir);
+            int nextLeft = grid.has(next, GridSpace.MINE) ? left - 1 : left;
+            if(nextLeft < 1 || nextLeft <= grid.lives[next]){
+                continue;
+            }
+            int nextState = GridArray.state(next, nextLeft);
+            grid.lives[next] = (byte) nextLeft;
+            grid.via[nextState] = (byte) dir;
+            forward[nextState] = forward[state] + 1;
+            ahead.add(nextState);
+            for(int spare = 1; spare <= LIVES; spare++){
+                meet(nextState, GridArray.state(next, spare), forward, backward, meeting);
+            }
+        }
+    }
+
+    // expandBackward() moves back from one state of the backward side, to
+    // each space with a door into it.
+    private void expandBackward(int state, int[] forward, int[] backward, byte[] back,
+                                byte[] backBest, IntQueue behind, int[] meeting){
+        int space = state / LIVES;
+        // moving back off a mine leaves one life less to spare before it.
+        int spare = state % LIVES + 1 - (grid.has(space, GridSpace.MINE) ? 1 : 0);
+        expanded++;
+        if(spare < 1){
+            return;
+        }
+        int row = space / grid.width;
+        int col = space % grid.width;
+        for(int dir = GridSpace.UP; dir <= GridSpace.LEFT; dir <<= 1){
+            // the space before this one is on the opposite side from the
+            // direction moved into this one.
+            int prev = space - grid.step(dir);
+            boolean inside;
+            switch(dir){
+                case GridSpace.UP: inside = row < grid.height - 1; break;
+                case GridSpace.DOWN: inside = row > 0; break;
+                case GridSpace.LEFT: inside = col < grid.width - 1; break;
+                default: inside = col > 0; break;
+            }
+            if(!inside || !grid.has(prev, dir) || spare <= backBest[prev]){
+                continue;
+            }
+            int prevState = GridArray.state(prev, spare);
+            backBest[prev] = (byte) spare;
+            back[prevState] = (byte) dir;
+            backward[prevState] = backward[state] + 1;
+            behind.add(prevState);
+            for(int left = 1; left <= LIVES; left++){
+                meet(GridArray.state(prev, left), prevState, forward, backward, meeting);
+            }
+        }
+    }
+
+    // meet() checks whether a forward and a backward state of the same space
+    // join into a better path than the best found so far. The path ends with
+    // the forward state's lives, less the mines the backward state is short
+    // of full spare lives.
+    private void meet(int ahead, int behind, int[] forward, int[] backward, int[] meeting){
+        if(forward[ahead] == GridArray.UNREACHED || backward[behind] == GridArray.UNREACHED){
+            return;
+        }
+        int left = ahead % LIVES + 1;
+        int spare = behind % LIVES + 1;
+        int length = forward[ahead] + backward[behind];
+        int end = left - (LIVES - spare);
+        if(end < 1){
+            return;
+        }
+        if(length < meeting[0] || (length == meeting[0] && end > meeting[1])){
+            meeting[0] = length;
+            meeting[1] = end;
+            meeting[2] = ahead;
+            meeting[3] = behind;
+        }
+    }
+
+    // begin() sets the start state up as reached, at full lives.
+    //
+    // Returns:
+    // int, the start state.
+    private int begin(){
+        int first = GridArray.state(grid.start, LIVES);
+        grid.via[first] = GridSpace.START;
+        grid.lives[grid.start] = LIVES;
+        return first;
+    }
+
+    // finish() saves the path to the end, if the end was reached.
+    private void finish(int goal, int left){
+        if(left == 0){
+            return;
+        }
+        found = true;
+        lives = left;
+        length = trace(goal, left);
+        path = steps;
+    }
+
+    // trace() follows the directions of the states back from a space to the
+    // start, and writes them into steps, growing it if it's too short.
+    //
+    // Parameters:
+    // space: the space to trace back from
+    // left: the lives left in the state it was reached with
+    //
+    // Returns:
+    // int, the number of directions from the start to the space.
+    private int trace(int space, int left){
+        // count the steps first, then fill the directions in from the back.
+        int count = 0;
+        for(int at = space, l = left; grid.via[GridArray.state(at, l)] != GridSpace.START; count++){
+            int dir = grid.via[GridArray.state(at, l)];
+            if(grid.has(at, GridSpace.MINE)){
+                l++;
+            }
+            at -= grid.step(dir);
+        }
+        if(steps.length < count){
+            steps = new byte[Math.max(count, steps.length * 2)];
+        }
+        for(int i = count - 1; i >= 0; i--){
+            int dir = grid.via[GridArray.state(space, left)];
+            steps[i] = (byte) dir;
+            if(grid.has(space, GridSpace.MINE)){
+                left++;
+            }
+            space -= grid.step(dir);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Class: MazeServer
+ *
+ * This class solves mazes sent to it over HTTP, on localhost, so
+ * a run doesn't have to start a new JVM, and warm up its JIT, for
+ * each file. It answers:
+ *
+ * POST /solve: the body is one or more maze lines, as in mazes.txt,
+ * and the response is the text MazeSolver would print for them
+ * GET /health: ok, while the server is running
+ * GET /metrics: counts of the requests and mazes handled so far,
+ * one per line, as name value
+ *
+ * Each request is read on a thread of its own, and its mazes are
+ * solved by a MazeBatch on one pool of workers shared by every
+ * request, so small requests that come in at once are solved side
+ * by side, each one's output still in order. Mazes are solved by
+ * the same MazeJob the file mode uses, with the options the server
+ * was started with.
+ *
+ * Only so many requests are taken at once; past that, a request is
+ * turned away straight off with 503 Service Unavailable, rather
+ * than waiting in a queue. A request with a line that isn't a maze
+ * gets 400 Bad Request; one that fails for any other reason, which
+ * can only be a fault in the server, gets 500 Internal Server Error,
+ * and the failure is logged to standard error.
+ *
+ */
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MazeServer
+{
+    // the seconds given to requests in progress to finish when stopping.
+    private static final int STOP_DELAY = 1;
+
+    private final HttpServer server;
+    // each request is handled on a thread of its own, made as needed.
+    private final ExecutorService requests = Executors.newCachedThreadPool();
+    private final ExecutorService workers;
+    private final int threads, limit;
+    private final MazeJob job;
+    private final SolutionCache cache;
+    private final Semaphore permits;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private final long began = System.nanoTime();
+
+    private final AtomicLong handled = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong mazes = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+
+    // Parameters:
+    // port: the port to listen on, on localhost; 0 picks a free one
+    // threads: the number of workers to solve mazes on
+    // limit: the most requests to take at once
+    // job: the work to do for each maze
+    // cache: the cache the job uses, to report on, or null for none.
+    public MazeServer(int port, int threads, int limit, MazeJob job, SolutionCache cache) throws IOException {
+        if(threads < 1 || limit < 1){
+            throw new IllegalArgumentException("The server needs at least 1 worker and 1 request at a time");
+        }
+        this.threads = threads;
+        this.limit = limit;
+        this.job = job;
+        this.cache = cache;
+        workers = Executors.newFixedThreadPool(threads);
+        permits = new Semaphore(limit);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(requests);
+        server.createContext("/solve", this::solve);
+        server.createContext("/health", exchange -> reply(exchange, 200, "ok\n"));
+        server.createContext("/metrics", exchange -> reply(exchange, 200, metrics()));
+    }
+
+    // start() starts taking requests.
+    public void start(){
+        server.start();
+    }
+
+    // port() gives the port the server is listening on.
+    public int port(){
+        return server.getAddress().getPort();
+    }
+
+    // await() waits until the server is stopped.
+    public void await() throws InterruptedException {
+        stopped.await();
+    }
+
+    // stop() stops taking requests, lets the ones in progress finish, and
+    // stops the workers.
+    public void stop(){
+        server.stop(STOP_DELAY);
+        requests.shutdown();
+        workers.shutdown();
+        try {
+            workers.awaitTermination(STOP_DELAY, TimeUnit.SECONDS);
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        stopped.countDown();
+    }
+
+    // solve() answers a POST /solve request with the solutions of the mazes
+    // in its body.
+    private void solve(HttpExchange exchange) throws IOException {
+        if(!"POST".equals(exchange.getRequestMethod())){
+            exchange.getResponseHeaders().set("Allow", "POST");
+            reply(exchange, 405, "Use POST to send mazes to solve\n");
+            return;
+        }
+        // turn the request away at once if the server is already full.
+        if(!permits.tryAcquire()){
+            rejected.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            reply(exchange, 503, "Too many requests at once; try again later\n");
+            return;
+        }
+        long mark = System.nanoTime();
+        try {
+            // the whole answer is kept until it's done, so a bad line further
+            // on can still be answered with an error instead.
+            StringWriter text = new StringWriter();
+            PrintWriter out = new PrintWriter(text);
+            MazeBatch batch = new MazeBatch(workers, threads, job, out);
+            int index = 0;
+            try (MazeReader reader = new MazeReader(Channels.newChannel(exchange.getRequestBody()))) {
+                while(reader.next()){
+                    index++;
+                    if(!SolutionCache.fits(reader.values(), reader.count())){
+                        throw new IllegalArgumentException("Maze " + index + " does not have all of its spaces");
+                    }
+                    batch.submit(index, reader.values(), reader.count());
+                }
+                batch.finish();
+            }
+            catch(IllegalArgumentException e){
+                // a line that isn't a maze, including a number that won't parse.
+                batch.cancel();
+                failed.incrementAndGet();
+                reply(exchange, 400, e.getMessage() == null ? e.toString() + "\n" : e.getMessage() + "\n");
+                return;
+            }
+            catch(RuntimeException e){
+                // anything else is the server's own fault, not the request's.
+                batch.cancel();
+                failed.incrementAndGet();
+                System.err.println("Request to /solve failed:");
+                e.printStackTrace();
+                reply(exchange, 500, "The server failed to solve the mazes\n");
+                return;
+            }
+            out.flush();
+            mazes.addAndGet(index);
+            handled.incrementAndGet();
+            reply(exchange, 200, text.toString());
+        }
+        finally{
+            busyNanos.addAndGet(System.nanoTime() - mark);
+            permits.release();
+        }
+    }
+
+    // metrics() gives the counts of what the server has done so far.
+    private String metrics(){
+        StringBuilder text = new StringBuilder();
+        text.append("uptime_seconds ").append((System.nanoTime() - began) / 1000000000L).append('\n');
+        text.append("requests_solved ").append(handled.get()).append('\n');
+        text.append("requests_rejected ").append(rejected.get()).append('\n');
+        text.append("requests_failed ").append(failed.get()).append('\n');
+        text.append("requests_in_progress ").append(limit - permits.availablePermits()).append('\n');
+        text.append("mazes_solved ").append(mazes.get()).append('\n');
+        text.append("request_seconds_total ").append(busyNanos.get() / 1e9).append('\n');
+        text.append("workers ").append(threads).append('\n');
+        if(cache != null){
+            text.append("cache_hits ").append(cache.hits()).append('\n');
+            text.append("cache_misses ").append(cache.misses()).append('\n');
+        }
+        return text.toString();
+    }
+
+    // reply() sends a response with a text body and closes the exchange.
+    private static void reply(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -12,66 +12,346 @@
  * doesn't kill the player by traversing over (too many) mines.
  *
  * The maze file, named "mazes.txt", should be located in the
- * working directory.
+ * working directory, unless another file is named with command
+ * line flag -input PATH. It may be in the text format or in the
+ * binary format of MazeFile, which MazeConverter converts to and
+ * from; which one it is is found from the file itself.
  *
  * The output for each maze in the file is a bracketed list of
  * directions to take that shortest path through the maze from
- * start to finish.
+ * start to finish, or No path if there is none.
  *
  * The user may add command line flag -extra to also get in the
  * output graphical representation of the maze and the number of
  * lives left after the path is traversed (starting with 3;
  * stepping on a mine with 1 life kills the player).
  *
+ * Mazes more than 100 rows or columns are drawn with -extra as an
+ * overview, one character for each block of spaces, so the drawing
+ * stays within 80 characters by 40 lines; smaller ones are drawn
+ * in full. The
+ * user may add command line flag -view TOP,LEFT,ROWS,COLS to draw
+ * only that window of each maze, in full, however large it is, and
+ * -showpath to draw the path over the maze, as the direction taken
+ * out of each space, with X on each mine stepped on.
+ *
+ * The user may add command line flag -threads N to solve the
+ * mazes on N threads at once; the output is printed in the same
+ * order either way.
+ *
+ * The user may add command line flag -engine NAME to pick the
+ * search algorithm: dijkstra (the default), astar, bidirectional,
+ * parallel or corridors. With -extra, the output then also includes the
+ * number of search states the engine expanded for each maze.
+ *
+ * The user may add command line flags -lives N (1 to 20), -damage N
+ * and -minecost N to solve the mazes under other rules: starting
+ * with N lives instead of 3, with each mine taking N lives instead
+ * of 1, and with moving onto a mine costing N steps instead of 1.
+ * The path is then the cheapest one, and the lives left are out of
+ * N. The cache is not used under other rules, and -queries and
+ * -tiles can't be given with them.
+ *
+ * The user may add command line flag -cache N to remember the
+ * solutions of up to N mazes, so a maze that comes up again in the
+ * file is not solved again, and -cachefile PATH to also save the
+ * solutions to a file that later runs can use; a file that isn't
+ * one the cache wrote is refused, and left alone. Solutions are
+ * kept for the engine that found them. The number of mazes found
+ * in the cache is printed to standard error at the end.
+ *
+ * The user may add command line flag -precheck to first flood each
+ * maze with a Bitboard, a row of 64 spaces at a time, and skip the
+ * search for any maze whose end can't be reached; it pays off when
+ * many mazes have no path, or are mostly open rooms.
+ *
+ * The user may add command line flag -rle to write each run of the
+ * same direction in a solution once, with a count, as 'right' x 57.
+ *
+ * The user may add command line flag -queries FILE to also answer
+ * route questions about the mazes, such as from the start to each
+ * checkpoint or from each spawn point to the end; the format of
+ * the file is described in RouteQueries.
+ *
+ * The user may add command line flag -stats to print, to standard
+ * error at the end, the mazes and spaces solved per second and the
+ * percentiles of the time each stage took per maze, and -statsfile
+ * PATH to also save every maze's measurements as CSV, or as JSON
+ * if PATH ends in .json.
+ *
+ * The user may add command line flag -tiles SIZE to solve each maze
+ * of a binary file a tile of SIZE by SIZE spaces at a time, with
+ * TiledSearch, for mazes too large to hold in memory; -tilecache N
+ * sets how many tiles are kept in memory at once (256). The maze
+ * is not drawn in this mode, and -threads, -cache and -queries are
+ * not used.
+ *
+ * The user may add command line flag -serve PORT to run MazeServer
+ * on localhost at that port instead of reading a file, solving the
+ * mazes sent to it with the other flags given; -threads N then sets
+ * the number of workers (one per processor) and -maxrequests N the
+ * most requests taken at once (64). The server runs until the
+ * program is stopped.
+ *
+ * All output goes through one large buffer, which is written out
+ * as it fills and once more at the end.
+ *
+ * Unless a maze is drawn or asked route questions, it is solved in
+ * a SolverContext kept by each thread, whose arrays are reused from
+ * one maze to the next, so that once they've grown to fit the
+ * largest maze, solving the rest allocates next to nothing.
+ *
  */
 
 import java.io.*;
-import java.util.Scanner;
-import java.util.regex.*;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.NoSuchFileException;
 
 public class MazeSolver {
 
+    // the number of solutions to remember when only -cachefile is given.
+    private static final int CACHE_SIZE = 10000;
+    // the size of the output buffer, in characters.
+    private static final int BUFFER_SIZE = 1 << 16;
+    // the number of tiles to keep in memory when only -tiles is given.
+    private static final int TILE_CACHE = 256;
+    // the most requests the server takes at once when only -serve is given.
+    private static final int MAX_REQUESTS = 64;
+
     public static void main(String[] args) {
 
-        // initiazlize command line flag parser to see whether user wants "extra" output.
+        // initiazlize command line flag parser to see whether user wants "extra" output,
+        // on how many threads, with which engine, and with what cache.
         CommandLineArgs command = new CommandLineArgs();
         boolean extra = command.flagset(args);
+        int threads = command.threads(args);
+        SearchEngine engine = command.engine(args);
+        MazeRules rules = command.rules(args);
+        boolean report = extra && command.value(args, "-engine") != null;
+        boolean runLength = command.flagset(args, "-rle");
+        boolean precheck = command.flagset(args, "-precheck");
+        boolean showPath = command.flagset(args, "-showpath");
+        int[] window = command.window(args);
+        String cacheSize = command.value(args, "-cache");
+        String cacheFile = command.value(args, "-cachefile");
+        String queryFile = command.value(args, "-queries");
+        String inputFile = command.value(args, "-input");
+        if(inputFile == null){
+            inputFile = "mazes.txt";
+        }
+        String statsFile = command.value(args, "-statsfile");
+        String tileSize = command.value(args, "-tiles");
+        String tileCache = command.value(args, "-tilecache");
+        MazeStats stats = command.flagset(args, "-stats") || statsFile != null ? new MazeStats() : null;
 
-        try {
-            // open file; pathname is stored here.
-            Scanner input = new Scanner(new File("mazes.txt"));
+        // all output is written through one buffer, which is only flushed
+        // once it fills up and at the very end.
+        PrintWriter out = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(System.out, Charset.defaultCharset()), BUFFER_SIZE), false);
 
-            // for each line in the file, decode the maze and solve it.
-            while (input.hasNextLine()) {
+        // open file; pathname is stored here.
+        // in server mode, the mazes come from requests instead of a file.
+        String port = command.value(args, "-serve");
+        if(port != null){
+            String limit = command.value(args, "-maxrequests");
+            try (SolutionCache cache = openCache(cacheSize, cacheFile)) {
+                MazeJob job = new MazeJob(extra, showPath, window, engine, rules, precheck, report, runLength, cache,
+                        null, null);
+                serve(Integer.parseInt(port),
+                        command.value(args, "-threads") == null ? Runtime.getRuntime().availableProcessors() : threads,
+                        limit == null ? MAX_REQUESTS : Integer.parseInt(limit), job, cache);
+            }
+            catch(IOException e){
+                System.err.println(e.getMessage());
+            }
+            return;
+        }
 
-                // get list of numbers by pattern matching only integers.
-                ArrayList<Integer> nums = new ArrayList<>();
-                String line = input.nextLine();
-                Pattern pat = Pattern.compile("([0-9]+)");
-                Matcher match = pat.matcher(line);
-                while (match.find()) {
-                    int num = Integer.parseInt(match.group());
-                    nums.add(num);
+        boolean failed = false;
+        try (SolutionCache cache = openCache(cacheSize, cacheFile);
+             MazeSource input = MazeFile.open(new File(inputFile))) {
+            // a maze solved in tiles is never built whole, so it is handled on its own.
+            if(tileSize != null){
+                if(!rules.isStandard()){
+                    throw new IllegalArgumentException("-tiles only solves under the standard rules");
+                }
+                if(!(input instanceof MazeFile)){
+                    throw new IllegalArgumentException("-tiles needs a binary maze file; convert it with MazeConverter");
                 }
+                solveTiled((MazeFile) input, Integer.parseInt(tileSize),
+                        tileCache == null ? TILE_CACHE : Integer.parseInt(tileCache), extra, report, runLength, out);
+                return;
+            }
+            if(queryFile != null && !rules.isStandard()){
+                throw new IllegalArgumentException("-queries only answers under the standard rules");
+            }
+            RouteQueries queries = queryFile == null ? null : new RouteQueries(new File(queryFile));
+            MazeJob job = new MazeJob(extra, showPath, window, engine, rules, precheck, report, runLength, cache,
+                    queries, stats);
 
-                // initialize the maze by passing the list in.
-                Maze myMaze = new Maze(nums);
-                // if the user wants extra output, display the maze.
-                if(extra) {
-                    myMaze.getMaze();
+            // for each line in the file, decode the maze and solve it, either
+            // here or on the batch's workers.
+            MazeBatch batch = null;
+            if(threads > 1){
+                batch = new MazeBatch(threads, job, out);
+            }
+            // one StringBuilder holds each maze's text in turn, when solving here,
+            // and is copied out through one array rather than a String each time.
+            StringBuilder text = new StringBuilder();
+            char[] chars = new char[0];
+            int index = 0;
+            long mark = stats == null ? 0 : System.nanoTime();
+            // whatever stops the reading, a bad line or a failed read, the mazes
+            // submitted before it are still printed and the workers are stopped,
+            // so the program never waits on them forever.
+            try {
+                while (input.next()) {
+                    index++;
+                    if(stats != null){
+                        stats.parsed(index, System.nanoTime() - mark);
+                    }
+                    // a binary file's mazes are handed over as their bytes, and
+                    // never widened into numbers unless they have to be.
+                    ByteBuffer bytes = input.bytes();
+                    if(batch != null){
+                        if(bytes != null){
+                            batch.submit(index, bytes);
+                        }
+                        else{
+                            batch.submit(index, input.values(), input.count());
+                        }
+                    }
+                    else{
+                        if(bytes != null){
+                            job.solve(index, bytes, text);
+                        }
+                        else{
+                            job.solve(index, input.values(), input.count(), text);
+                        }
+                        if(chars.length < text.length()){
+                            chars = new char[Math.max(text.length(), chars.length * 2)];
+                        }
+                        text.getChars(0, text.length(), chars, 0);
+                        out.write(chars, 0, text.length());
+                        text.setLength(0);
+                    }
+                    if(stats != null){
+                        mark = System.nanoTime();
+                    }
                 }
-                // display maze solution.
-                myMaze.getSolution();
-                // if the user wants extra output, display the lives left after solution.
-                if(extra){
-                    myMaze.getLives();
+            }
+            finally{
+                if(batch != null){
+                    batch.finish();
+                }
+            }
+            out.flush();
+            if(cache != null){
+                System.err.println("Cache: " + cache.hits() + " hits, " + cache.misses() + " misses");
+            }
+            if(stats != null){
+                stats.finish();
+                stats.report(System.err);
+                if(statsFile != null){
+                    stats.save(new File(statsFile));
                 }
             }
         }
+        // a number too large for an int stops the run with an error, as it
+        // always has, but only after what was solved before it is printed.
+        catch(NumberFormatException e){
+            failed = true;
+            System.err.println(e);
+        }
         // check for file not found.
-        catch(FileNotFoundException e){
-            System.out.println(e.getMessage());
+        catch(NoSuchFileException e){
+            out.println(e.getMessage() + " (No such file or directory)");
+        }
+        catch(IOException e){
+            out.println(e.getMessage());
+        }
+        // whatever happens, print what was solved before it.
+        finally{
+            out.flush();
+        }
+        if(failed){
+            System.exit(1);
+        }
+    }
+
+    // solveTiled() solves each maze of a binary file with a TiledSearch.
+    //
+    // Parameters:
+    // file: the binary maze file
+    // size: the number of rows and columns in a tile
+    // capacity: the most tiles to keep in memory at once
+    // extra: whether to include the lives left
+    // report: whether to include the number of states expanded
+    // runLength: whether to write runs of the same direction once, with a count
+    // out: where to print the output.
+    private static void solveTiled(MazeFile file, int size, int capacity, boolean extra, boolean report,
+                                   boolean runLength, PrintWriter out) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for(int maze = 0; maze < file.size(); maze++){
+            TiledSearch search = new TiledSearch(file, maze, size, capacity);
+            search.run();
+            if(search.found()){
+                Maze.writePath(text, search.path(), runLength);
+            }
+            else{
+                Maze.writeNoPath(text);
+            }
+            // as for a whole maze, an unsolved maze keeps all its lives.
+            if(extra){
+                Maze.writeLives(text, search.found() ? search.lives() : GridArray.LIVES);
+            }
+            if(report){
+                text.append("States expanded: ").append(search.expanded()).append("\n\n\n");
+            }
+            out.append(text);
+            text.setLength(0);
+        }
+    }
+
+    // serve() runs a MazeServer until the program is stopped.
+    //
+    // Parameters:
+    // port: the port to listen on, on localhost
+    // threads: the number of workers to solve mazes on
+    // limit: the most requests to take at once
+    // job: the work to do for each maze
+    // cache: the cache the job uses, or null for none.
+    private static void serve(int port, int threads, int limit, MazeJob job, SolutionCache cache) throws IOException {
+        MazeServer server = new MazeServer(port, threads, limit, job, cache);
+        // let the requests in progress finish when the program is stopped.
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        server.start();
+        System.err.println("Solving mazes at http://localhost:" + server.port() + "/solve");
+        try {
+            server.await();
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // openCache() opens the solution cache asked for on the command line.
+    //
+    // Parameters:
+    // size: the value of the -cache flag, or null
+    // file: the value of the -cachefile flag, or null
+    //
+    // Returns:
+    // SolutionCache, the cache, or null if neither flag was given.
+    private static SolutionCache openCache(String size, String file) throws IOException {
+        if(size == null && file == null){
+            return null;
+        }
+        int capacity = size == null ? CACHE_SIZE : Integer.parseInt(size);
+        if(file == null){
+            return new SolutionCache(capacity);
         }
+        return new SolutionCache(capacity, new File(file));
     }
 }
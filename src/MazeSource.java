@@ -0,0 +1,41 @@
+/*
+ * Interface: MazeSource
+ *
+ * This interface is a file of mazes, read one maze at a time as
+ * the numbers that encode it: the height, the width, and then the
+ * code of each space, row by row. MazeReader reads them from the
+ * text format and MazeFile from the binary one.
+ *
+ * A binary source can also give each maze as the bytes it is
+ * stored as, so it can be loaded into a grid a row of bytes at a
+ * time, without widening every space's code into a number first.
+ *
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public interface MazeSource extends Closeable
+{
+    // next() reads the numbers of the next maze in the file.
+    //
+    // Returns:
+    // boolean, true if a maze was read, or false at the end of the file.
+    boolean next() throws IOException;
+
+    // values() gives the numbers of the current maze. The array is reused
+    // for the next maze, and may be longer than the count of numbers.
+    int[] values();
+
+    // count() gives the count of numbers of the current maze.
+    int count();
+
+    // bytes() gives the current maze as a MazeFile stores it: an int height,
+    // an int width, and then one byte for each space, row by row.
+    //
+    // Returns:
+    // ByteBuffer, a buffer of its own positioned at the height, or null if
+    // the source only has the maze as numbers.
+    ByteBuffer bytes();
+}
@@ -0,0 +1,174 @@
+/*
+ * Class: MazeStats
+ *
+ * This class collects measurements of each maze solved in a run:
+ * how long it took to parse, build, solve and write out, how many
+ * spaces it has, how many states were expanded and queue
+ * operations done to solve it, and how long its path is.
+ *
+ * At the end of the run, report() prints the throughput, in mazes
+ * and spaces per second, and the 50th, 90th and 99th percentile and
+ * largest time of each stage. The measurements of every maze can
+ * also be saved, as CSV, or as JSON if the file name ends in .json.
+ *
+ * Measurements are only taken when a MazeStats is made for the
+ * run; otherwise the solver skips the clock altogether. A maze
+ * found in the SolutionCache is neither built nor solved, so it is
+ * recorded with no build or solve time.
+ *
+ * Measurements can be added from several threads at once.
+ *
+ */
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+public class MazeStats
+{
+    // Record is the measurements of one maze. Times are in nanoseconds.
+    public static class Record {
+        public final int index;
+        public long parse, build, solve, output;
+        public long cells, expanded, queueOps, pathLength;
+        public boolean cached;
+
+        // Parameters:
+        // index: the number of the maze in the file, counting from 1.
+        public Record(int index){
+            this.index = index;
+        }
+    }
+
+    private static final String[] STAGES = {"parse", "build", "solve", "output"};
+
+    private final List<Record> records = new ArrayList<>();
+    // parse times are measured as each line is read, before its Record is
+    // made on whichever thread solves it, so they are kept by maze number.
+    private long[] parsed = new long[64];
+    private final long began = System.nanoTime();
+    private long ended;
+
+    // parsed() saves the time taken to read one maze's line.
+    //
+    // Parameters:
+    // index: the number of the maze in the file, counting from 1
+    // nanos: the time taken, in nanoseconds.
+    public synchronized void parsed(int index, long nanos){
+        if(index > parsed.length){
+            parsed = Arrays.copyOf(parsed, Math.max(index, parsed.length * 2));
+        }
+        parsed[index - 1] = nanos;
+    }
+
+    // add() saves the measurements of one maze.
+    public synchronized void add(Record record){
+        records.add(record);
+    }
+
+    // finish() marks the end of the run, and matches the parse times up
+    // with the mazes they belong to.
+    public synchronized void finish(){
+        ended = System.nanoTime();
+        records.sort(Comparator.comparingInt(record -> record.index));
+        for(Record record: records){
+            if(record.index <= parsed.length){
+                record.parse = parsed[record.index - 1];
+            }
+        }
+    }
+
+    // report() prints the throughput and the time percentiles of each stage.
+    //
+    // Parameters:
+    // out: where to print the report.
+    public synchronized void report(PrintStream out){
+        double seconds = (ended - began) / 1e9;
+        long cells = 0;
+        for(Record record: records){
+            cells += record.cells;
+        }
+        out.printf(Locale.ROOT, "Stats: %d mazes, %d spaces in %.3f s: %.1f mazes/s, %.1f spaces/s%n",
+                records.size(), cells, seconds, records.size() / seconds, cells / seconds);
+        out.printf(Locale.ROOT, "%-8s %12s %12s %12s %12s%n", "stage", "p50 us", "p90 us", "p99 us", "max us");
+        for(int stage = 0; stage <= STAGES.length; stage++){
+            long[] times = new long[records.size()];
+            for(int i = 0; i < times.length; i++){
+                times[i] = stage < STAGES.length ? time(records.get(i), stage) : total(records.get(i));
+            }
+            Arrays.sort(times);
+            out.printf(Locale.ROOT, "%-8s %12.1f %12.1f %12.1f %12.1f%n",
+                    stage < STAGES.length ? STAGES[stage] : "total",
+                    percentile(times, 50), percentile(times, 90), percentile(times, 99),
+                    times.length == 0 ? 0 : times[times.length - 1] / 1e3);
+        }
+    }
+
+    // percentile() gives a percentile of sorted times, in microseconds,
+    // taking the nearest time at or above it.
+    private static double percentile(long[] sorted, int percent){
+        if(sorted.length == 0){
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(rank - 1, 0)] / 1e3;
+    }
+
+    // time() gives the time of one stage of a maze.
+    private static long time(Record record, int stage){
+        switch(stage){
+            case 0: return record.parse;
+            case 1: return record.build;
+            case 2: return record.solve;
+            default: return record.output;
+        }
+    }
+
+    // total() gives the time of every stage of a maze together.
+    private static long total(Record record){
+        return record.parse + record.build + record.solve + record.output;
+    }
+
+    // save() writes the measurements of every maze to a file, as JSON if
+    // its name ends in .json, and as CSV otherwise.
+    //
+    // Parameters:
+    // file: the file to write.
+    public synchronized void save(File file) throws IOException {
+        boolean json = file.getName().toLowerCase(Locale.ROOT).endsWith(".json");
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+            if(json){
+                out.println("[");
+            }
+            else{
+                out.println("maze,parse_ns,build_ns,solve_ns,output_ns,cells,expanded,queue_ops,path_length,cached");
+            }
+            for(int i = 0; i < records.size(); i++){
+                Record r = records.get(i);
+                if(json){
+                    out.printf(Locale.ROOT, "  {\"maze\": %d, \"parse_ns\": %d, \"build_ns\": %d, \"solve_ns\": %d,"
+                                    + " \"output_ns\": %d, \"cells\": %d, \"expanded\": %d, \"queue_ops\": %d,"
+                                    + " \"path_length\": %d, \"cached\": %b}%s%n",
+                            r.index, r.parse, r.build, r.solve, r.output, r.cells, r.expanded, r.queueOps,
+                            r.pathLength, r.cached, i < records.size() - 1 ? "," : "");
+                }
+                else{
+                    out.printf(Locale.ROOT, "%d,%d,%d,%d,%d,%d,%d,%d,%d,%b%n",
+                            r.index, r.parse, r.build, r.solve, r.output, r.cells, r.expanded, r.queueOps,
+                            r.pathLength, r.cached);
+                }
+            }
+            if(json){
+                out.println("]");
+            }
+        }
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * Class: ParallelSearch
+ *
+ * This class searches one maze on many threads at once, for mazes
+ * too large for a single thread to solve quickly. Since every step
+ * costs 1, the search goes out from the start one distance at a
+ * time, as Dijkstra's algorithm does, but all the states at the
+ * current distance, the frontier, are expanded at once by fork/join
+ * tasks, each taking a slice of them.
+ *
+ * Only the state with the most lives is kept for each space at each
+ * distance, as any other is no better. A space's lives at the next
+ * distance are raised with compare-and-set, so threads reaching the
+ * same space at once keep the best of them; the thread that first
+ * reaches it adds it to the next frontier. Once the whole distance
+ * is done, each new space picks the direction it was reached from,
+ * checking its neighbors in a fixed order, so the path found does
+ * not depend on which thread got there first.
+ *
+ * When the frontier grows wide, it is cheaper to go the other way
+ * (bottom-up): each space that could still get more lives checks
+ * whether any neighbor in the frontier leads into it, and needs no
+ * compare-and-set, as only its own task writes it. The search turns
+ * bottom-up once the frontier is more than 1/ALPHA of the spaces
+ * left to improve, and back once it is less than 1/BETA of the
+ * maze, as in Beamer's direction-optimizing BFS.
+ *
+ * The path found is as short, with as many lives left, as the one
+ * MazeSearch's Dijkstra finds; among equally good paths, it may
+ * pick a different one.
+ *
+ * A ParallelSearch can be run again and again, as the grid under it
+ * is changed or resized, and keeps its arrays from one run to the
+ * next, growing them only when a run needs more room. Each thread
+ * collects the spaces its tasks find in a buffer of its own, kept
+ * from one task to the next, before copying them into the next
+ * frontier, so the tasks allocate nothing but themselves.
+ *
+ * The tasks run on the common ForkJoinPool, whose size can be set
+ * with the system property
+ * java.util.concurrent.ForkJoinPool.common.parallelism.
+ *
+ */
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ParallelSearch
+{
+    private static final int LIVES = GridArray.LIVES;
+    // the fewest spaces or states a task works through before it is split.
+    private static final int GRAIN = 4096;
+    private static final int ALPHA = 14, BETA = 24;
+    // the passes made over the maze at each distance.
+    private static final int TOP_DOWN = 0, BOTTOM_UP = 1, SETTLE = 2, CLEAR = 3;
+    // the order the moves into a space are tried in, to break ties.
+    private static final int[] ORDER = {GridSpace.UP, GridSpace.LEFT, GridSpace.RIGHT, GridSpace.DOWN};
+    // gives compare-and-set on the elements of a byte array.
+    private static final VarHandle LIVES_AT = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    // Pass is one pass over a slice of the frontier, or of the maze,
+    // split in halves until it is small enough to do in one task.
+    private class Pass extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int kind, from, to;
+
+        Pass(int kind, int from, int to){
+            this.kind = kind;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute(){
+            if(to - from <= GRAIN){
+                slice(kind, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Pass(kind, from, middle), new Pass(kind, middle, to));
+        }
+    }
+
+    private final GridArray grid;
+    private final ForkJoinPool pool = ForkJoinPool.commonPool();
+    // the lives of the state each space is in at the current distance and at
+    // the next one, or 0 if it isn't in that frontier. Both are all 0
+    // between runs.
+    private byte[] current = new byte[0], next = new byte[0];
+    // the spaces in the current frontier and in the next one.
+    private int[] frontier = new int[0], reached = new int[0];
+    // each thread's buffer for the spaces a task finds; a task of no more
+    // than GRAIN states finds at most four spaces for each of them.
+    private final ThreadLocal<int[]> found = ThreadLocal.withInitial(() -> new int[GRAIN * 4]);
+    private int frontierSize;
+    private final AtomicInteger reachedSize = new AtomicInteger();
+    // the count of spaces that reached full lives in the last settle pass.
+    private final AtomicInteger full = new AtomicInteger();
+    private int expanded;
+    private long frontierOps;
+
+    // Parameters:
+    // grid: the maze to search.
+    public ParallelSearch(GridArray grid){
+        this.grid = grid;
+    }
+
+    // run() searches the maze. Afterwards, the grid's arrays describe the
+    // path found, as they do after MazeSearch, and the end has lives if
+    // there is a path to it.
+    public void run(){
+        int size = grid.size();
+        if(current.length < size){
+            int room = Math.max(size, current.length * 2);
+            current = new byte[room];
+            next = new byte[room];
+            frontier = new int[room];
+            reached = new int[room];
+        }
+        expanded = 0;
+        frontierOps = 0;
+
+        int start = grid.start;
+        grid.via[GridArray.state(start, LIVES)] = GridSpace.START;
+        grid.lives[start] = LIVES;
+        current[start] = LIVES;
+        frontier[0] = start;
+        frontierSize = 1;
+        // the spaces that could still be reached with more lives.
+        int remaining = size - 1;
+
+        boolean bottomUp = false;
+        while(frontierSize > 0 && grid.lives[grid.end] == 0){
+            expanded += frontierSize;
+            if(!bottomUp && (long) frontierSize * ALPHA > remaining){
+                bottomUp = true;
+            }
+            else if(bottomUp && (long) frontierSize * BETA < size){
+                bottomUp = false;
+            }
+            reachedSize.set(0);
+            if(bottomUp){
+                pass(BOTTOM_UP, size);
+            }
+            else{
+                pass(TOP_DOWN, frontierSize);
+            }
+            full.set(0);
+            pass(SETTLE, reachedSize.get());
+            remaining -= full.get();
+            pass(CLEAR, frontierSize);
+
+            frontierOps += frontierSize + reachedSize.get();
+            byte[] swapLives = current;
+            current = next;
+            next = swapLives;
+            int[] swap = frontier;
+            frontier = reached;
+            reached = swap;
+            frontierSize = reachedSize.get();
+        }
+        // leave the lives of the last frontier cleared for the next run.
+        pass(CLEAR, frontierSize);
+    }
+
+    // expanded() gives the count of states the search expanded.
+    public int expanded(){
+        return expanded;
+    }
+
+    // frontierOps() gives the count of states put in and taken out of the
+    // frontiers.
+    public long frontierOps(){
+        return frontierOps;
+    }
+
+    // pass() makes one pass over the first count spaces of the frontier, or
+    // of the maze, on the pool if there are enough of them to be worth it.
+    private void pass(int kind, int count){
+        if(count <= GRAIN){
+            slice(kind, 0, count);
+        }
+        else{
+            pool.invoke(new Pass(kind, 0, count));
+        }
+    }
+
+    // slice() makes one pass over a slice of the frontier, or of the maze.
+    private void slice(int kind, int from, int to){
+        switch(kind){
+            case TOP_DOWN:
+                expandFrontier(from, to);
+                break;
+            case BOTTOM_UP:
+                gatherFrontier(from, to);
+                break;
+            case SETTLE:
+                settle(from, to);
+                break;
+            default:
+                for(int i = from; i < to; i++){
+                    current[frontier[i]] = 0;
+                }
+                break;
+        }
+    }
+
+    // expandFrontier() moves on from each state in a slice of the frontier,
+    // raising the lives of the spaces it reaches at the next distance.
+    private void expandFrontier(int from, int to){
+        int[] found = this.found.get();
+        int count = 0;
+        for(int i = from; i < to; i++){
+            int space = frontier[i];
+            int left = current[space];
+            for(int dir = GridSpace.UP; dir <= GridSpace.LEFT; dir <<= 1){
+                if(!grid.has(space, dir)){
+                    continue;
+                }
+                int nextSpace = space + grid.step(dir);
+                int nextLeft = grid.has(nextSpace, GridSpace.MINE) ? left - 1 : left;
+                if(nextLeft < 1 || nextLeft <= grid.lives[nextSpace]){
+                    continue;
+                }
+                // raise the space's lives unless another thread has already
+                // raised them as far; whoever raises them from 0 adds it.
+                byte old = (byte) LIVES_AT.getVolatile(next, nextSpace);
+                while(nextLeft > old){
+                    if(LIVES_AT.compareAndSet(next, nextSpace, old, (byte) nextLeft)){
+                        if(old == 0){
+                            found[count++] = nextSpace;
+                        }
+                        break;
+                    }
+                    old = (byte) LIVES_AT.getVolatile(next, nextSpace);
+                }
+            }
+        }
+        add(found, count);
+    }
+
+    // gatherFrontier() checks each space in a slice of the maze for a
+    // neighbor in the frontier that reaches it with more lives than before.
+    private void gatherFrontier(int from, int to){
+        int[] found = this.found.get();
+        int count = 0;
+        for(int space = from; space < to; space++){
+            if(grid.lives[space] == LIVES){
+                continue;
+            }
+            int mine = grid.has(space, GridSpace.MINE) ? 1 : 0;
+            int best = 0;
+            for(int dir = GridSpace.UP; dir <= GridSpace.LEFT; dir <<= 1){
+                int prev = behind(space, dir);
+                if(prev >= 0 && current[prev] != 0){
+                    best = Math.max(best, current[prev] - mine);
+                }
+            }
+            if(best >= 1 && best > grid.lives[space]){
+                next[space] = (byte) best;
+                found[count++] = space;
+            }
+        }
+        add(found, count);
+    }
+
+    // add() copies the spaces a task found into the next frontier.
+    private void add(int[] found, int count){
+        if(count > 0){
+            System.arraycopy(found, 0, reached, reachedSize.getAndAdd(count), count);
+        }
+    }
+
+    // settle() saves the lives of each space in a slice of the next
+    // frontier, along with the direction it was reached from.
+    private void settle(int from, int to){
+        int fullCount = 0;
+        for(int i = from; i < to; i++){
+            int space = reached[i];
+            int left = next[space];
+            grid.lives[space] = (byte) left;
+            if(left == LIVES){
+                fullCount++;
+            }
+            // ties between equally good moves into the space are broken in
+            // the same order, whichever thread found it.
+            int mine = grid.has(space, GridSpace.MINE) ? 1 : 0;
+            for(int dir: ORDER){
+                int prev = behind(space, dir);
+                if(prev >= 0 && current[prev] - mine == left){
+                    grid.via[GridArray.state(space, left)] = (byte) dir;
+                    break;
+                }
+            }
+        }
+        full.addAndGet(fullCount);
+    }
+
+    // behind() gives the space a move in a direction into a space comes
+    // from, or -1 if there is no door from it.
+    private int behind(int space, int dir){
+        boolean inside;
+        switch(dir){
+            case GridSpace.UP: inside = space < grid.size() - grid.width; break;
+            case GridSpace.DOWN: inside = space >= grid.width; break;
+            case GridSpace.LEFT: inside = space % grid.width < grid.width - 1; break;
+            default: inside = space % grid.width > 0; break;
+        }
+        if(!inside){
+            return -1;
+        }
+        int prev = space - grid.step(dir);
+        return grid.has(prev, dir) ? prev : -1;
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Class: ResourceSearch
+ *
+ * This class searches a GridArray for the cheapest path from its
+ * start to its end that doesn't kill the player, under any
+ * MazeRules: any number of lives up to MazeRules.MAX_LIVES, mines
+ * that take any number of them, and a cost for moving into each
+ * space. Among the cheapest paths, it finds one with the most lives
+ * left.
+ *
+ * Each way of reaching a space is a label: the space, the lives
+ * left, and the label it was reached from. Labels are taken in
+ * order of cost, from buckets, one for each cost (Dial's
+ * algorithm): since no move costs more than the rules' largest
+ * cost, only that many buckets plus one are in use at once, and
+ * are reused in a ring. A label is only taken further if its space
+ * has not already been reached, at no greater cost, with at least
+ * as many lives; the labels kept at a space are then exactly the
+ * ones no other label is better than in both cost and lives, so
+ * there are never more than the starting lives of them per space.
+ *
+ * Under the standard rules, it finds a path as short, with as many
+ * lives left, as MazeSearch's Dijkstra does; among equally good
+ * paths, it may pick a different one, as it doesn't follow the
+ * first solver's order the way MazeSearch does.
+ *
+ */
+
+import java.util.Arrays;
+
+public class ResourceSearch
+{
+    private static final byte[] NO_PATH = new byte[0];
+    // the order moves out of a space are tried in, to break ties.
+    private static final int[] ORDER = {GridSpace.UP, GridSpace.LEFT, GridSpace.RIGHT, GridSpace.DOWN};
+
+    private final GridArray grid;
+    private final MazeRules rules;
+    // the space, lives left, label before, and direction moved, of each label.
+    private int[] labelSpace, labelParent;
+    private byte[] labelLives, labelDir;
+    private int labels;
+    private byte[] path = NO_PATH;
+    private boolean found;
+    private int cost, lives, expanded;
+    private long queueOps;
+
+    // Parameters:
+    // grid: the maze to search
+    // rules: the rules to solve it under.
+    public ResourceSearch(GridArray grid, MazeRules rules){
+        if(!rules.fits(grid)){
+            throw new IllegalArgumentException("The rules do not give a cost for every space of the maze");
+        }
+        this.grid = grid;
+        this.rules = rules;
+    }
+
+    // run() searches the maze.
+    public void run(){
+        int size = grid.size();
+        // the most lives any label taken so far has reached each space with.
+        byte[] settled = new byte[size];
+        labelSpace = new int[size + 16];
+        labelParent = new int[size + 16];
+        labelLives = new byte[size + 16];
+        labelDir = new byte[size + 16];
+        labels = 0;
+        path = NO_PATH;
+        found = false;
+        cost = 0;
+        lives = 0;
+        expanded = 0;
+
+        IntQueue[] buckets = new IntQueue[rules.maxCost() + 1];
+        buckets[0] = new IntQueue(16);
+        buckets[0].add(label(grid.start, rules.lives, -1, GridSpace.START));
+        int waiting = 1;
+        int end = -1;
+        // once the end is reached, the rest of its cost is finished so that the
+        // label with the most lives left among the cheapest is kept.
+        for(int at = 0; waiting > 0 && end < 0; at++){
+            IntQueue bucket = buckets[at % buckets.length];
+            while(bucket != null && !bucket.isEmpty()){
+                int label = bucket.remove();
+                waiting--;
+                int space = labelSpace[label];
+                int left = labelLives[label];
+                if(left <= settled[space]){
+                    continue;
+                }
+                settled[space] = (byte) left;
+                expanded++;
+                if(space == grid.end){
+                    end = label;
+                    cost = at;
+                    continue;
+                }
+                for(int dir: ORDER){
+                    if(!grid.has(space, dir)){
+                        continue;
+                    }
+                    int next = space + grid.step(dir);
+                    int nextLeft = grid.has(next, GridSpace.MINE) ? left - rules.damage : left;
+                    if(nextLeft < 1 || nextLeft <= settled[next]){
+                        continue;
+                    }
+                    int slot = (at + rules.cost(grid, next)) % buckets.length;
+                    if(buckets[slot] == null){
+                        buckets[slot] = new IntQueue(16);
+                    }
+                    buckets[slot].add(label(next, nextLeft, label, dir));
+                    waiting++;
+                }
+            }
+        }
+        queueOps = 0;
+        for(IntQueue bucket: buckets){
+            if(bucket != null){
+                queueOps += bucket.operations();
+            }
+        }
+        if(end < 0){
+            return;
+        }
+        found = true;
+        lives = labelLives[end];
+        path = trace(end);
+    }
+
+    // found() tells whether the last search found a path.
+    public boolean found(){
+        return found;
+    }
+
+    // path() gives the directions of the path found, from start to end, as
+    // GridSpace direction codes. It is empty if there is no path.
+    public byte[] path(){
+        return path;
+    }
+
+    // cost() gives the cost of the path found.
+    public int cost(){
+        return cost;
+    }
+
+    // lives() gives the lives left at the end of the path found.
+    public int lives(){
+        return lives;
+    }
+
+    // expanded() gives the count of labels the last search expanded.
+    public int expanded(){
+        return expanded;
+    }
+
+    // queueOps() gives the count of labels the last search put in and took
+    // out of its buckets.
+    public long queueOps(){
+        return queueOps;
+    }
+
+    // label() adds a label, growing the arrays if they're full.
+    //
+    // Returns:
+    // int, the number of the label.
+    private int label(int space, int left, int parent, int dir){
+        if(labels == labelSpace.length){
+            int grown = labels * 2;
+            labelSpace = Arrays.copyOf(labelSpace, grown);
+            labelParent = Arrays.copyOf(labelParent, grown);
+            labelLives = Arrays.copyOf(labelLives, grown);
+            labelDir = Arrays.copyOf(labelDir, grown);
+        }
+        labelSpace[labels] = space;
+        labelParent[labels] = parent;
+        labelLives[labels] = (byte) left;
+        labelDir[labels] = (byte) dir;
+        return labels++;
+    }
+
+    // trace() follows the labels back from one to the start.
+    //
+    // Returns:
+    // byte[], the directions from the start to the label's space.
+    private byte[] trace(int label){
+        int steps = 0;
+        for(int at = label; labelParent[at] >= 0; at = labelParent[at]){
+            steps++;
+        }
+        byte[] dirs = new byte[steps];
+        for(int i = steps - 1; i >= 0; i--){
+            dirs[i] = labelDir[label];
+            label = labelParent[label];
+        }
+        return dirs;
+    }
+}
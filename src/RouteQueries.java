@@ -0,0 +1,222 @@
+/*
+ * Class: RouteQueries
+ *
+ * This class reads a file of route questions about the mazes in
+ * the maze file, and answers them for each maze as it is solved.
+ * All of a maze's questions from the same space, or to its end,
+ * are answered from one SearchTree, so each extra route costs only
+ * the walk back along it.
+ *
+ * Each line of the file asks for routes in one maze, which is given
+ * by its number in the maze file, counting from 1. A space is given
+ * as its row and column, counting from 0, with a comma between:
+ *
+ * 3 from 0,0 to 4,7 9,2        routes from 0,0 to each space
+ * 3 from start to 4,7 9,2      routes from the maze's start
+ * 3 to end from 4,7 9,2        routes from each space to the end
+ *
+ * Blank lines and lines starting with # are skipped. A row or
+ * column below 0 is an error in the file; a space past the edges
+ * of its maze is answered as not in the maze, since the size of a
+ * maze is only known once it's read.
+ *
+ * The answer to each route is written after the maze's own output:
+ * its length and the lives left, and then its directions the way a
+ * solution is written.
+ *
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RouteQueries
+{
+    // Kind is what a line of the file asks for: routes from a space, from
+    // the maze's start, or from spaces to its end.
+    private enum Kind { FROM_SPACE, FROM_START, TO_END }
+
+    // Query is one line of the file: what it asks for, the space the routes
+    // start from if they start from a given space, and the other ends of the
+    // routes as row, col pairs.
+    private static class Query {
+        final Kind kind;
+        final int row, col;
+        final int[] spaces;
+
+        Query(Kind kind, int row, int col, int[] spaces){
+            this.kind = kind;
+            this.row = row;
+            this.col = col;
+            this.spaces = spaces;
+        }
+    }
+
+    private final Map<Integer, List<Query>> queries = new HashMap<>();
+
+    // Parameters:
+    // file: the file of route questions to read.
+    public RouteQueries(File file) throws IOException {
+        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+            String line;
+            int number = 0;
+            while((line = in.readLine()) != null){
+                number++;
+                line = line.trim();
+                if(line.isEmpty() || line.startsWith("#")){
+                    continue;
+                }
+                try {
+                    parse(line.split("\\s+"));
+                }
+                catch(IllegalArgumentException e){
+                    throw new IllegalArgumentException("Bad route query on line " + number
+                            + " of " + file + ", " + e.getMessage() + ": " + line, e);
+                }
+            }
+        }
+    }
+
+    // parse() reads the words of one line into a Query for its maze.
+    private void parse(String[] words){
+        if(words.length < 4){
+            throw new IllegalArgumentException("too few words");
+        }
+        int maze = Integer.parseInt(words[0]);
+        Kind kind;
+        int row = 0, col = 0;
+        int first;
+        if(words[1].equals("from") && words[3].equals("to")){
+            if(words[2].equals("start")){
+                kind = Kind.FROM_START;
+            }
+            else{
+                kind = Kind.FROM_SPACE;
+                int[] space = space(words[2]);
+                row = space[0];
+                col = space[1];
+            }
+            first = 4;
+        }
+        else if(words[1].equals("to") && words[2].equals("end") && words[3].equals("from")){
+            kind = Kind.TO_END;
+            first = 4;
+        }
+        else{
+            throw new IllegalArgumentException("expected 'from' or 'to end'");
+        }
+        if(first == words.length){
+            throw new IllegalArgumentException("no spaces given");
+        }
+        int[] spaces = new int[(words.length - first) * 2];
+        for(int i = first; i < words.length; i++){
+            int[] space = space(words[i]);
+            spaces[(i - first) * 2] = space[0];
+            spaces[(i - first) * 2 + 1] = space[1];
+        }
+        queries.computeIfAbsent(maze, key -> new ArrayList<>()).add(new Query(kind, row, col, spaces));
+    }
+
+    // space() reads a space written as row,col.
+    private static int[] space(String word){
+        int comma = word.indexOf(',');
+        if(comma < 0){
+            throw new IllegalArgumentException("expected row,col: " + word);
+        }
+        int row = Integer.parseInt(word.substring(0, comma));
+        int col = Integer.parseInt(word.substring(comma + 1));
+        if(row < 0 || col < 0){
+            throw new IllegalArgumentException("row and column can't be below 0: " + word);
+        }
+        return new int[]{row, col};
+    }
+
+    // has() tells whether there are any questions about a maze.
+    //
+    // Parameters:
+    // index: the number of the maze in the maze file, counting from 1.
+    public boolean has(int index){
+        return queries.containsKey(index);
+    }
+
+    // write() answers the questions about a maze.
+    //
+    // Parameters:
+    // index: the number of the maze in the maze file, counting from 1
+    // maze: the maze
+    // runLength: whether to write runs of the same direction once, with a count
+    // out: the StringBuilder to write the answers to.
+    public void write(int index, Maze maze, boolean runLength, StringBuilder out){
+        List<Query> asked = queries.get(index);
+        if(asked == null){
+            return;
+        }
+        // questions from the same space share one tree, as do those from the
+        // start and those to the end.
+        Map<Integer, SearchTree> fromSpace = new HashMap<>();
+        SearchTree fromStart = null, toEnd = null;
+        for(Query query: asked){
+            SearchTree tree = null;
+            switch(query.kind){
+                case FROM_START:
+                    if(fromStart == null){
+                        fromStart = maze.treeFromStart();
+                    }
+                    tree = fromStart;
+                    break;
+                case TO_END:
+                    if(toEnd == null){
+                        toEnd = maze.treeToEnd();
+                    }
+                    tree = toEnd;
+                    break;
+                default:
+                    // a route from a space past the edges has no tree at all.
+                    if(inside(maze, query.row, query.col)){
+                        tree = fromSpace.computeIfAbsent(query.row * maze.getWidth() + query.col,
+                                key -> maze.treeFrom(query.row, query.col));
+                    }
+                    break;
+            }
+            for(int i = 0; i < query.spaces.length; i += 2){
+                int row = query.spaces[i];
+                int col = query.spaces[i + 1];
+                out.append("Route from ");
+                if(query.kind == Kind.TO_END){
+                    out.append('(').append(row).append(',').append(col).append(") to the end: ");
+                }
+                else{
+                    if(query.kind == Kind.FROM_START){
+                        out.append("the start");
+                    }
+                    else{
+                        out.append('(').append(query.row).append(',').append(query.col).append(')');
+                    }
+                    out.append(" to (").append(row).append(',').append(col).append("): ");
+                }
+                if(tree == null || !inside(maze, row, col)){
+                    out.append("not in the ").append(maze.getHeight()).append('x').append(maze.getWidth())
+                            .append(" maze\n\n");
+                }
+                else if(tree.distance(row, col) < 0){
+                    out.append("no safe route\n\n");
+                }
+                else{
+                    out.append(tree.distance(row, col)).append(" steps, ")
+                            .append(tree.lives(row, col)).append(" lives left\n");
+                    Maze.writePath(out, tree.path(row, col), runLength);
+                }
+            }
+        }
+    }
+
+    // inside() tells whether a space is in the maze.
+    private static boolean inside(Maze maze, int row, int col){
+        return row >= 0 && row < maze.getHeight() && col >= 0 && col < maze.getWidth();
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Enum: SearchEngine
+ *
+ * The search algorithms a Maze can be solved with. All of them
+ * find the shortest path that keeps the player alive, and among
+ * the shortest, one with the most lives left; they differ in how
+ * many states they look at on the way.
+ *
+ * DIJKSTRA searches outward from the start evenly in every
+ * direction. ASTAR searches toward the end first, guided by the
+ * Manhattan distance to it. BIDIRECTIONAL searches out from the
+ * start and back from the end at once, until the two meet.
+ * PARALLEL searches outward from the start like DIJKSTRA, a whole
+ * distance at a time on many threads, for a single very large maze.
+ * CORRIDORS searches only the junctions of the maze, with each
+ * corridor between them as one step, and dead ends cut off.
+ *
+ * A SolutionCache file saves the engine of each solution by its
+ * place in this list, so new engines go at the end.
+ *
+ */
+
+public enum SearchEngine
+{
+    DIJKSTRA("dijkstra"),
+    ASTAR("astar"),
+    BIDIRECTIONAL("bidirectional"),
+    PARALLEL("parallel"),
+    CORRIDORS("corridors");
+
+    private final String flag;
+
+    SearchEngine(String flag){
+        this.flag = flag;
+    }
+
+    // flag() gives the name of the engine as given on the command line.
+    public String flag(){
+        return flag;
+    }
+
+    // Parameters:
+    // flag: the name of an engine, as given on the command line.
+    //
+    // Returns:
+    // SearchEngine, the engine with that name.
+    public static SearchEngine fromFlag(String flag){
+        for(SearchEngine engine: values()){
+            if(engine.flag.equals(flag)){
+                return engine;
+            }
+        }
+        throw new IllegalArgumentException("Unknown search engine: " + flag);
+    }
+}
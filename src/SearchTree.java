@@ -0,0 +1,194 @@
+/*
+ * Class: SearchTree
+ *
+ * This class holds the shortest safe paths between one space of a
+ * maze and every other space, found with one search, so that any
+ * number of routes can be looked up afterwards without searching
+ * again.
+ *
+ * A tree grows either out from a source space, giving the routes
+ * from it to every space, or back from the maze's end, through the
+ * doors in reverse, giving the routes from every space to the end.
+ * Either way, a route starts with the full lives, doesn't count a
+ * mine on the space it starts from, and is the shortest that keeps
+ * the player alive, with the most lives left among the shortest.
+ *
+ * Like MazeSearch, the search is over (space, lives) states, and a
+ * state is only taken further if its space has not been reached
+ * with at least as many lives. Going back from the end, the lives
+ * of a state are its spare lives: the full lives, less one for each
+ * mine between its space and the end.
+ *
+ */
+
+import java.util.Arrays;
+
+public class SearchTree
+{
+    private static final int LIVES = GridArray.LIVES;
+
+    private final GridArray grid;
+    private final boolean toEnd;
+    private final int root;
+    // via holds the direction of each state's step, lives the most lives
+    // each space has been reached with, first the distance each space was
+    // first reached at, and best the most lives it was reached with at that
+    // distance.
+    private final byte[] via, lives, best;
+    private final int[] first;
+
+    // Parameters:
+    // grid: the maze to search
+    // root: the space the tree grows from, or the end if toEnd
+    // toEnd: whether to grow the tree back from the end
+    SearchTree(GridArray grid, int root, boolean toEnd){
+        this.grid = grid;
+        this.root = root;
+        this.toEnd = toEnd;
+        via = new byte[grid.size() * LIVES];
+        lives = new byte[grid.size()];
+        best = new byte[grid.size()];
+        first = new int[grid.size()];
+        Arrays.fill(first, GridArray.UNREACHED);
+        grow();
+    }
+
+    // grow() searches the whole maze out from the root, a distance at a time.
+    private void grow(){
+        IntQueue queue = new IntQueue(grid.height + grid.width);
+        int state = GridArray.state(root, LIVES);
+        via[state] = (byte) (toEnd ? GridSpace.END : GridSpace.START);
+        reach(root, LIVES, 0);
+        queue.add(state);
+
+        int dist = 0;
+        int layer = queue.size();
+        while(!queue.isEmpty()){
+            if(layer == 0){
+                dist++;
+                layer = queue.size();
+            }
+            layer--;
+            state = queue.remove();
+            int space = state / LIVES;
+            int left = state % LIVES + 1;
+            if(toEnd){
+                // moving back off a mine leaves one life less to spare before it.
+                if(grid.has(space, GridSpace.MINE)){
+                    left--;
+                }
+                if(left < 1){
+                    continue;
+                }
+            }
+            int row = space / grid.width;
+            int col = space % grid.width;
+            for(int dir = GridSpace.UP; dir <= GridSpace.LEFT; dir <<= 1){
+                int next;
+                int nextLeft = left;
+                if(toEnd){
+                    // the space before this one is on the opposite side from
+                    // the direction moved into this one, and needs a door to it.
+                    boolean inside;
+                    switch(dir){
+                        case GridSpace.UP: inside = row < grid.height - 1; break;
+                        case GridSpace.DOWN: inside = row > 0; break;
+                        case GridSpace.LEFT: inside = col < grid.width - 1; break;
+                        default: inside = col > 0; break;
+                    }
+                    next = space - grid.step(dir);
+                    if(!inside || !grid.has(next, dir)){
+                        continue;
+                    }
+                }
+                else{
+                    if(!grid.has(space, dir)){
+                        continue;
+                    }
+                    next = space + grid.step(dir);
+                    if(grid.has(next, GridSpace.MINE)){
+                        nextLeft--;
+                    }
+                }
+                if(nextLeft < 1 || nextLeft <= lives[next]){
+                    continue;
+                }
+                via[GridArray.state(next, nextLeft)] = (byte) dir;
+                reach(next, nextLeft, dist + 1);
+                queue.add(GridArray.state(next, nextLeft));
+            }
+        }
+    }
+
+    // reach() notes that a space has been reached with some lives at a distance.
+    private void reach(int space, int left, int dist){
+        lives[space] = (byte) left;
+        if(first[space] == GridArray.UNREACHED){
+            first[space] = dist;
+        }
+        if(first[space] == dist){
+            best[space] = (byte) left;
+        }
+    }
+
+    // distance() gives the length of the route between the root and a space.
+    //
+    // Returns:
+    // int, the number of steps, or -1 if there is no safe route.
+    public int distance(int row, int col){
+        int space = space(row, col);
+        return first[space] == GridArray.UNREACHED ? -1 : first[space];
+    }
+
+    // lives() gives the lives left at the end of the route between the root
+    // and a space, or 0 if there is no safe route.
+    public int lives(int row, int col){
+        return best[space(row, col)];
+    }
+
+    // path() gives the directions of the route between the root and a space,
+    // as GridSpace direction codes: from the root to the space, or from the
+    // space to the end if the tree grows back from the end.
+    //
+    // Returns:
+    // byte[], the directions, which are empty if there is no safe route.
+    public byte[] path(int row, int col){
+        int space = space(row, col);
+        if(first[space] == GridArray.UNREACHED){
+            return new byte[0];
+        }
+        int left = best[space];
+        byte[] dirs = new byte[first[space]];
+        for(int i = 0; i < dirs.length; i++){
+            int dir = via[GridArray.state(space, left)];
+            if(toEnd){
+                // follow the steps on toward the end, gaining back the life
+                // spared for each mine on the way.
+                dirs[i] = (byte) dir;
+                space += grid.step(dir);
+                if(grid.has(space, GridSpace.MINE)){
+                    left++;
+                }
+            }
+            else{
+                // follow the steps back toward the root, filling the
+                // directions in from the end.
+                dirs[dirs.length - 1 - i] = (byte) dir;
+                if(grid.has(space, GridSpace.MINE)){
+                    left++;
+                }
+                space -= grid.step(dir);
+            }
+        }
+        return dirs;
+    }
+
+    // space() numbers a space of the maze, checking that it is in it.
+    private int space(int row, int col){
+        if(row < 0 || row >= grid.height || col < 0 || col >= grid.width){
+            throw new IllegalArgumentException("Space " + row + "," + col + " is not in the "
+                    + grid.height + "x" + grid.width + " maze");
+        }
+        return row * grid.width + col;
+    }
+}
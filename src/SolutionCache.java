@@ -0,0 +1,340 @@
+/*
+ * Class: SolutionCache
+ *
+ * This class remembers the solutions of mazes already solved, so a
+ * maze that comes up again doesn't have to be built and solved
+ * again. Mazes are looked up by a 64-bit hash of their height,
+ * width and space codes; since different mazes can share a hash,
+ * a solution is only used once the whole maze has been compared
+ * with the one it was saved for.
+ *
+ * Each SearchEngine can pick a different path among equally good
+ * ones, so a solution is kept for the engine that found it, and is
+ * only used when the maze is solved with that same engine.
+ *
+ * The most recently used solutions are kept in memory, up to a set
+ * number of them. Solutions can also be saved to a file, which is
+ * appended to as mazes are solved and read back in when the cache
+ * is opened again, so they last from one run to the next. Only
+ * the hashes and file positions of the saved solutions are kept in
+ * memory; each one is read from the file when it is needed.
+ *
+ * The file starts with the 4 bytes MZSC and an int, the version of
+ * the format, 1. A file that doesn't start that way is refused, so
+ * a cache file given by mistake is never written over. After that,
+ * each record is the hash, the height, the width, the lives left,
+ * the length of the path and the number of the engine, followed by
+ * one byte per space and one byte per direction of the path. A last
+ * record cut short, by a run that stopped while writing it, is
+ * dropped when the file is opened; any other record that can't be
+ * read is an error, and the file is left as it is.
+ *
+ * The cache can be used from several threads at once.
+ *
+ */
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class SolutionCache implements Closeable
+{
+    // Entry is one maze and its solution.
+    public static class Entry {
+        public final long hash;
+        public final int height, width, lives;
+        public final SearchEngine engine;
+        public final byte[] cells, path;
+
+        Entry(long hash, int height, int width, byte[] cells, SearchEngine engine, byte[] path, int lives){
+            this.hash = hash;
+            this.height = height;
+            this.width = width;
+            this.cells = cells;
+            this.engine = engine;
+            this.path = path;
+            this.lives = lives;
+        }
+
+        // matches() tells whether this entry is for the maze given by the numbers,
+        // solved with the given engine.
+        boolean matches(int[] nums, SearchEngine engine){
+            if(engine != this.engine || nums[0] != height || nums[1] != width){
+                return false;
+            }
+            for(int i = 0; i < cells.length; i++){
+                if(cells[i] != (byte) nums[i + 2]){
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final byte[] MAGIC = {'M', 'Z', 'S', 'C'};
+    private static final int VERSION = 1;
+    // the bytes of the magic number and version, and of the start of a record.
+    private static final int PREFIX = MAGIC.length + 4;
+    private static final int HEADER = 8 + 5 * 4;
+    private static final SearchEngine[] ENGINES = SearchEngine.values();
+
+    private final LinkedHashMap<Long, Entry> recent;
+    private final Map<Long, Long> saved = new HashMap<>();
+    private FileChannel file;
+    private long hits, misses;
+
+    // Parameters:
+    // capacity: the most solutions to keep in memory.
+    public SolutionCache(int capacity){
+        // an access-ordered map puts the least recently used entry first,
+        // so it is the one let go once the cache is over capacity.
+        recent = new LinkedHashMap<Long, Entry>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, SolutionCache.Entry> eldest){
+                return size() > capacity;
+            }
+        };
+    }
+
+    // Parameters:
+    // capacity: the most solutions to keep in memory.
+    // store: the file to save solutions to, and read saved ones from.
+    public SolutionCache(int capacity, File store) throws IOException {
+        this(capacity);
+        file = FileChannel.open(store.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            open(store);
+        }
+        catch(IOException e){
+            file.close();
+            throw e;
+        }
+    }
+
+    // open() checks the file is a solution cache, starting a new one if it's
+    // empty, and goes through its records, noting where each one starts.
+    private void open(File store) throws IOException {
+        long size = file.size();
+        ByteBuffer prefix = ByteBuffer.allocate(PREFIX);
+        if(size == 0){
+            prefix.put(MAGIC).putInt(VERSION).flip();
+            while(prefix.hasRemaining()){
+                file.write(prefix, prefix.position());
+            }
+            return;
+        }
+        if(size < PREFIX){
+            throw new IOException(store + " is not a solution cache file");
+        }
+        byte[] magic = new byte[MAGIC.length];
+        readFully(prefix, 0);
+        prefix.get(magic);
+        if(!Arrays.equals(magic, MAGIC) || prefix.getInt() != VERSION){
+            throw new IOException(store + " is not a solution cache file");
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        long position = PREFIX;
+        while(position + HEADER <= size){
+            header.clear();
+            readFully(header, position);
+            int height = header.getInt(8), width = header.getInt(12);
+            int lives = header.getInt(16), steps = header.getInt(20), engine = header.getInt(24);
+            if(height < 0 || width < 0 || lives < 0 || steps < 0 || engine < 0 || engine >= ENGINES.length
+                    || (long) height * width > Integer.MAX_VALUE){
+                throw new IOException(store + " has a broken record at byte " + position);
+            }
+            long length = HEADER + (long) height * width + steps;
+            if(position + length > size){
+                break;
+            }
+            saved.put(key(header.getLong(0), ENGINES[engine]), position);
+            position += length;
+        }
+        // what's left is a record cut short by a run that stopped while writing
+        // it, which is dropped.
+        if(position < size){
+            file.truncate(position);
+        }
+    }
+
+    // fits() tells whether the numbers hold a whole maze, so it can be hashed.
+    public static boolean fits(int[] nums, int count){
+        return count >= 2 && nums[0] >= 0 && nums[1] >= 0 && count - 2 >= (long) nums[0] * nums[1];
+    }
+
+    // hash() gives the 64-bit hash of a maze. The space codes are taken
+    // eight at a time as one long, and each long is mixed into the hash.
+    //
+    // Parameters:
+    // nums: the numbers encoding the maze, which must fit.
+    //
+    // Returns:
+    // long, the hash.
+    public static long hash(int[] nums){
+        long hash = mix(0x9E3779B97F4A7C15L ^ ((long) nums[0] << 32 | nums[1]));
+        int last = nums[0] * nums[1] + 2;
+        long word = 0;
+        int packed = 0;
+        for(int i = 2; i < last; i++){
+            word = word << 8 | (nums[i] & 0xFF);
+            if(++packed == 8){
+                hash = Long.rotateLeft(hash ^ word * 0xC2B2AE3D27D4EB4FL, 31) * 0x9E3779B97F4A7C15L;
+                word = 0;
+                packed = 0;
+            }
+        }
+        hash = Long.rotateLeft(hash ^ word * 0xC2B2AE3D27D4EB4FL, 31) * 0x9E3779B97F4A7C15L;
+        return mix(hash ^ last);
+    }
+
+    // hash() gives the same 64-bit hash as above, of a maze whose space codes
+    // are held one byte each, as in a GridArray.
+    //
+    // Parameters:
+    // height: the number of rows in the maze
+    // width: the number of columns in the maze
+    // codes: the codes of its spaces, row by row; any past the last space
+    // are left out.
+    //
+    // Returns:
+    // long, the hash.
+    public static long hash(int height, int width, byte[] codes){
+        long hash = mix(0x9E3779B97F4A7C15L ^ ((long) height << 32 | width));
+        int cells = height * width;
+        long word = 0;
+        int packed = 0;
+        for(int i = 0; i < cells; i++){
+            word = word << 8 | (codes[i] & 0xFF);
+            if(++packed == 8){
+                hash = Long.rotateLeft(hash ^ word * 0xC2B2AE3D27D4EB4FL, 31) * 0x9E3779B97F4A7C15L;
+                word = 0;
+                packed = 0;
+            }
+        }
+        hash = Long.rotateLeft(hash ^ word * 0xC2B2AE3D27D4EB4FL, 31) * 0x9E3779B97F4A7C15L;
+        return mix(hash ^ (cells + 2));
+    }
+
+    // key() gives the key the solution of a maze, found with an engine, is
+    // kept under.
+    private static long key(long hash, SearchEngine engine){
+        return hash + engine.ordinal() * 0x9E3779B97F4A7C15L;
+    }
+
+    // mix() scrambles the bits of a hash so each one depends on all the others.
+    private static long mix(long hash){
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    // get() looks up the solution of a maze, first in memory and then in
+    // the file, and counts it as a hit or a miss.
+    //
+    // Parameters:
+    // nums: the numbers encoding the maze
+    // hash: the hash of the maze
+    // engine: the engine the maze is being solved with
+    //
+    // Returns:
+    // Entry, the maze's solution, or null if it hasn't been saved.
+    public synchronized Entry get(int[] nums, long hash, SearchEngine engine) throws IOException {
+        long key = key(hash, engine);
+        Entry entry = recent.get(key);
+        if(entry == null && file != null && saved.containsKey(key)){
+            entry = read(saved.get(key));
+            recent.put(key, entry);
+        }
+        if(entry != null && entry.matches(nums, engine)){
+            hits++;
+            return entry;
+        }
+        misses++;
+        return null;
+    }
+
+    // put() saves the solution of a maze, replacing any other maze's
+    // solution with the same hash and engine.
+    //
+    // Parameters:
+    // nums: the numbers encoding the maze
+    // hash: the hash of the maze
+    // engine: the engine the solution was found with
+    // path: the directions of the solution
+    // lives: the lives left at the end of the solution
+    public synchronized void put(int[] nums, long hash, SearchEngine engine, byte[] path, int lives)
+            throws IOException {
+        byte[] cells = new byte[nums[0] * nums[1]];
+        for(int i = 0; i < cells.length; i++){
+            cells[i] = (byte) nums[i + 2];
+        }
+        Entry entry = new Entry(hash, nums[0], nums[1], cells, engine, path, lives);
+        long key = key(hash, engine);
+        recent.put(key, entry);
+        if(file != null){
+            long position = file.size();
+            ByteBuffer record = ByteBuffer.allocate(HEADER + cells.length + path.length);
+            record.putLong(hash).putInt(entry.height).putInt(entry.width)
+                    .putInt(lives).putInt(path.length).putInt(engine.ordinal()).put(cells).put(path);
+            record.flip();
+            while(record.hasRemaining()){
+                file.write(record, position + record.position());
+            }
+            saved.put(key, position);
+        }
+    }
+
+    // read() reads the record at a position in the file.
+    private Entry read(long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        readFully(header, position);
+        int height = header.getInt(8);
+        int width = header.getInt(12);
+        ByteBuffer body = ByteBuffer.allocate(height * width + header.getInt(20));
+        readFully(body, position + HEADER);
+        byte[] cells = new byte[height * width];
+        byte[] path = new byte[header.getInt(20)];
+        body.get(cells).get(path);
+        return new Entry(header.getLong(0), height, width, cells, ENGINES[header.getInt(24)], path,
+                header.getInt(16));
+    }
+
+    // readFully() fills a buffer from the file, starting at a position.
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while(buffer.hasRemaining()){
+            if(file.read(buffer, position + buffer.position()) < 0){
+                throw new IOException("Solution cache file ends in the middle of a record");
+            }
+        }
+        buffer.flip();
+    }
+
+    // hits() gives the count of lookups that found a solution.
+    public synchronized long hits(){
+        return hits;
+    }
+
+    // misses() gives the count of lookups that didn't.
+    public synchronized long misses(){
+        return misses;
+    }
+
+    // close() closes the file, if there is one.
+    @Override
+    public synchronized void close() throws IOException {
+        if(file != null){
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Class: SolverContext
+ *
+ * This class solves maze after maze in the same arrays. Building a
+ * Maze for each one makes a new GridArray, with its distance, lives
+ * and direction arrays, and a new MazeSearch, with its queue and
+ * path, only to throw them all away once the solution is written.
+ * A SolverContext keeps one of each instead: load() resizes its
+ * grid for the next maze and fills it in, and solve() searches it
+ * again, so the arrays only grow when a maze larger than any before
+ * it comes along. Once they are large enough, solving the next maze
+ * with Dijkstra allocates nothing.
+ *
+ * A maze is loaded either from the numbers of a line of text or
+ * from the bytes of a MazeFile, which are copied into the grid as
+ * they are.
+ *
+ * Building a maze is kept apart from solving it, so a maze can be
+ * checked for a path before it's searched, and the two can be timed
+ * separately.
+ *
+ * Solving with the corridors engine first shrinks the maze to a
+ * CorridorGraph. The context keeps the graphs of the last GRAPHS
+ * layouts it solved that way, of up to GRAPH_SPACES spaces each,
+ * keyed by the same hash of the layout a SolutionCache uses, and
+ * a layout that comes up again, later in the file or in a later
+ * request to MazeServer, gets its graph back instead of being
+ * shrunk again. Since a graph is only good for the grid it was
+ * built on, the graphs are not shared between contexts, and are
+ * not saved from one run to the next.
+ *
+ * The path is left in the search's buffer, good only until the next
+ * maze is solved; write() writes it out, and path() copies it for
+ * anything that keeps it. A context is not safe to share between
+ * threads, so each thread solving mazes has its own.
+ *
+ */
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class SolverContext
+{
+    // the most corridor graphs kept, and the most spaces a maze can have for
+    // its graph to be kept.
+    private static final int GRAPHS = 16;
+    private static final int GRAPH_SPACES = 1 << 20;
+
+    // Layout is a layout solved with the corridors engine, and its graph.
+    private static class Layout {
+        final int height, width;
+        final byte[] codes;
+        final CorridorGraph graph;
+
+        Layout(GridArray grid, CorridorGraph graph){
+            height = grid.height;
+            width = grid.width;
+            codes = Arrays.copyOf(grid.cells, grid.size());
+            this.graph = graph;
+        }
+
+        // matches() tells whether a grid holds this layout.
+        boolean matches(GridArray grid){
+            return grid.height == height && grid.width == width
+                    && Arrays.equals(grid.cells, 0, codes.length, codes, 0, codes.length);
+        }
+    }
+
+    private final GridArray grid = new GridArray(0, 0);
+    private final MazeSearch search = new MazeSearch(grid);
+    // the graphs of the layouts solved most recently, by their hash; an
+    // access-ordered map lets go of the least recently used first.
+    private final LinkedHashMap<Long, Layout> graphs = new LinkedHashMap<Long, Layout>(16, 0.75f, true){
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Layout> eldest){
+            return size() > GRAPHS;
+        }
+    };
+    // whether the maze loaded last has been searched.
+    private boolean searched;
+
+    // load() makes the context hold a new maze, in place of the last one,
+    // ready to solve.
+    //
+    // Parameters:
+    // nums: an array of integers representing the height, width, and cells
+    // of the maze.
+    // count: the count of integers in the array that belong to the maze.
+    public void load(int[] nums, int count){
+        if(count < 2){
+            throw new IllegalArgumentException("Maze needs a height and width");
+        }
+        int height = nums[0];
+        int width = nums[1];
+        if(height < 0 || width < 0 || count - 2 < (long) height * width){
+            throw new IllegalArgumentException("Maze of " + height + "x" + width
+                    + " has only " + (count - 2) + " spaces");
+        }
+        grid.resize(height, width);
+        for(int space = 0; space < grid.size(); space++){
+            grid.set(space, nums[space + 2]);
+        }
+        searched = false;
+    }
+
+    // load() makes the context hold a new maze, in place of the last one,
+    // copying its codes into the grid as they are, with nothing to parse.
+    //
+    // Parameters:
+    // maze: a buffer holding the maze as a MazeFile stores it, positioned
+    // at its height.
+    public void load(ByteBuffer maze){
+        if(maze.remaining() < 8){
+            throw new IllegalArgumentException("Maze needs a height and width");
+        }
+        int height = maze.getInt();
+        int width = maze.getInt();
+        if(height < 0 || width < 0 || maze.remaining() < (long) height * width){
+            throw new IllegalArgumentException("Maze of " + height + "x" + width
+                    + " has only " + maze.remaining() + " spaces");
+        }
+        grid.resize(height, width);
+        grid.load(maze);
+        searched = false;
+    }
+
+    // height() gives the number of rows of the maze loaded.
+    public int height(){
+        return grid.height;
+    }
+
+    // width() gives the number of columns of the maze loaded.
+    public int width(){
+        return grid.width;
+    }
+
+    // solve() searches the maze loaded for the shortest path that doesn't
+    // kill the player, under the standard rules.
+    //
+    // Parameters:
+    // engine: the search algorithm to use.
+    public void solve(SearchEngine engine){
+        if(engine != SearchEngine.CORRIDORS || grid.size() > GRAPH_SPACES){
+            search.run(engine);
+            searched = true;
+            return;
+        }
+        // a layout solved before gets its graph back; a new one keeps the graph
+        // built for it, in place of any other layout with the same hash.
+        long hash = SolutionCache.hash(grid.height, grid.width, grid.cells);
+        Layout known = graphs.get(hash);
+        boolean reused = known != null && known.matches(grid);
+        if(reused){
+            grid.adopt(known.graph);
+        }
+        search.run(engine);
+        searched = true;
+        if(!reused){
+            graphs.put(hash, new Layout(grid, grid.corridors()));
+        }
+    }
+
+    // hasPath() tells whether the maze loaded has any path that doesn't kill
+    // the player under the given rules, by flooding it with a Bitboard.
+    public boolean hasPath(MazeRules rules){
+        return new Bitboard(grid).reaches(rules.hits());
+    }
+
+    // found() tells whether the maze was solved and a path found.
+    public boolean found(){
+        return searched && search.found();
+    }
+
+    // isSolved() tells whether the maze has a solution: a path, or the start
+    // being the end already.
+    public boolean isSolved(){
+        return length() > 0 || grid.start == grid.end;
+    }
+
+    // path() gives a copy of the directions of the path found, from start to
+    // end, as GridSpace direction codes. It is empty if there is no path.
+    public byte[] path(){
+        return Arrays.copyOf(directions(), length());
+    }
+
+    // directions() gives the directions of the path found without copying
+    // them: only the first length() of them count, and they are only good
+    // until the next maze is solved.
+    public byte[] directions(){
+        return search.directions();
+    }
+
+    // length() gives the number of steps in the path found.
+    public int length(){
+        return searched ? search.length() : 0;
+    }
+
+    // lives() gives the lives left at the end of the path found; a maze with
+    // no path keeps all its lives.
+    public int lives(){
+        return found() ? search.lives() : GridArray.LIVES;
+    }
+
+    // expanded() gives the count of states the search expanded.
+    public int expanded(){
+        return searched ? search.expanded() : 0;
+    }
+
+    // queueOps() gives the count of queue operations the search took.
+    public long queueOps(){
+        return searched ? search.queueOps() : 0;
+    }
+
+    // write() writes the solution the way a maze's is written, or No path if
+    // there is none.
+    //
+    // Parameters:
+    // out: the StringBuilder to write the solution to.
+    // runLength: whether to write runs of the same direction as 'right' x 57.
+    public void write(StringBuilder out, boolean runLength){
+        if(isSolved()){
+            Maze.writePath(out, directions(), length(), runLength);
+        }
+        else{
+            Maze.writeNoPath(out);
+        }
+    }
+}
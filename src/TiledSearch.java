@@ -0,0 +1,619 @@
+/*
+ * Class: TiledSearch
+ *
+ * This class solves a maze from a MazeFile without ever holding the
+ * whole maze in memory, in the manner of hierarchical pathfinding
+ * (HPA*). The maze is split into square tiles, which are read from
+ * the file as they are needed and kept in a cache of the most
+ * recently used ones, so memory is bounded by the size of the cache
+ * rather than the size of the maze.
+ *
+ * The search runs over an abstract graph whose nodes are the spaces
+ * a path can enter a tile at, along with the mines used so far.
+ * The edges out of a node are found by searching its tile alone,
+ * from that space, the first time the node is expanded: each way
+ * out of the tile, through a door on its edge, or to the end,
+ * becomes an edge with its length and the mines on it. Since more
+ * mines can buy a shorter way through a tile, there can be an edge
+ * for each count of mines the player could survive. The abstract
+ * graph is searched with A*, ranked by the distance so far plus the
+ * Manhattan distance to the end, and then by the mines used.
+ *
+ * Any path through the maze splits into pieces that each stay in
+ * one tile, and each piece can be swapped for the edge across that
+ * tile that is no longer and has no more mines, so the path found
+ * is as short, with as many lives left, as the one solveMaze()
+ * finds. Among equally good paths, it may pick a different one.
+ *
+ * Once the end is reached, only the tiles along the path found are
+ * searched again, to fill in the directions through each of them.
+ *
+ * The start and end come from the index of the MazeFile, so no
+ * tile is read before the search needs it.
+ *
+ * Memory is bounded by the tile cache only as far as the maze
+ * itself goes: no more than the cache's tiles are ever held, with
+ * SIZE x SIZE bytes each and the edges found out of them. The
+ * abstract search's own state is not bounded by the cache, and
+ * can't be let go with the tiles, since A* needs the distances of
+ * every state it has reached until it is done. It is kept in plain
+ * arrays, one set for each tile the search reaches, with a slot
+ * for each space on the tile's edges and one each for the start
+ * and end. A slot holds, for each count of mines, its distance,
+ * the state before it and the edge taken from there, which comes to
+ * about 80 bytes; a tile of SIZE x SIZE spaces has 4 * SIZE + 2
+ * slots. So on top of the cache, the search takes about 320 / SIZE
+ * bytes for each space of the tiles it reaches, and nothing for the
+ * tiles it doesn't, along with a reference for every tile of the
+ * maze: for a 50k x 50k maze in tiles of 1024, at most about 800 MB
+ * if the search reaches every tile, against the 2.5 GB of the maze.
+ * Larger tiles lower it, at the cost of a larger cache.
+ *
+ */
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class TiledSearch
+{
+    private static final int LIVES = GridArray.LIVES;
+    private static final byte[] NO_PATH = new byte[0];
+    // the direction code of an edge to the end, rather than out of the tile.
+    private static final int TO_END = 0;
+    // the distance of a state not reached yet.
+    private static final long UNREACHED = Long.MAX_VALUE;
+
+    // Tile is one square of the maze, read into memory, along with the
+    // edges found out of it so far, by the slot of the space they start from.
+    private static class Tile {
+        final int row, col, rows, cols;
+        final byte[] cells;
+        final int[][] edges;
+
+        Tile(int row, int col, int rows, int cols, int slots){
+            this.row = row;
+            this.col = col;
+            this.rows = rows;
+            this.cols = cols;
+            cells = new byte[rows * cols];
+            edges = new int[slots][];
+        }
+    }
+
+    // Border is what the abstract search knows of one tile's slots. Each
+    // (slot, mines used) state reached keeps its distance, the state before
+    // it, and the way it was reached from there: the space, in the tile
+    // before, that it left that tile at, or -1 for the end, the length and
+    // mines of the edge across that tile, and the direction it left in.
+    private static class Border {
+        final long[] dist, prev;
+        final int[] exit, length;
+        final byte[] mines, dir;
+        // for each slot, one more than the fewest mines it was expanded with.
+        final byte[] settled;
+
+        Border(int slots){
+            dist = new long[slots * LIVES];
+            Arrays.fill(dist, UNREACHED);
+            prev = new long[slots * LIVES];
+            exit = new int[slots * LIVES];
+            length = new int[slots * LIVES];
+            mines = new byte[slots * LIVES];
+            dir = new byte[slots * LIVES];
+            settled = new byte[slots];
+        }
+    }
+
+    private final MazeFile file;
+    private final int maze, size;
+    private final int height, width;
+    private final long start, end;
+    private final LinkedHashMap<Long, Tile> tiles;
+    private long loads;
+
+    // the count of tiles across the maze, and of slots in each tile.
+    private final int across, slots;
+    // the borders of the tiles the search has reached, by tile number.
+    private Border[] borders;
+    // the waiting states of the abstract search, in a heap ordered by rank.
+    private long[] ranks = new long[64], states = new long[64];
+    private int waiting;
+
+    // the arrays for searching one tile, reused from one tile to the next:
+    // the direction into each (space, mines used) state, and one more than
+    // the fewest mines each space has been reached with.
+    private final byte[] via, fewest;
+    private final IntQueue queue;
+
+    private byte[] path = NO_PATH;
+    private boolean found;
+    private int lives;
+    private long expanded;
+
+    // Parameters:
+    // file: the file holding the maze
+    // maze: the number of the maze in the file, counting from 0
+    // size: the number of rows and columns in a tile
+    // capacity: the most tiles to keep in memory at once.
+    public TiledSearch(MazeFile file, int maze, int size, int capacity) throws IOException {
+        if(size < 1 || capacity < 1){
+            throw new IllegalArgumentException("Tiles need a size and cache of at least 1");
+        }
+        this.file = file;
+        this.maze = maze;
+        this.size = size;
+        height = file.height(maze);
+        width = file.width(maze);
+        across = (width + size - 1) / size;
+        long down = (height + size - 1) / size;
+        if(across * down > Integer.MAX_VALUE || 4L * size + 2 > Integer.MAX_VALUE / LIVES){
+            throw new IllegalArgumentException("Tiles of " + size + " make too many tiles or slots");
+        }
+        slots = 4 * size + 2;
+        via = new byte[size * size * LIVES];
+        fewest = new byte[size * size];
+        queue = new IntQueue(size * 4);
+        // an access-ordered map puts the least recently used tile first, so
+        // it is the one let go once the cache is over capacity.
+        tiles = new LinkedHashMap<Long, Tile>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Tile> eldest){
+                return size() > capacity;
+            }
+        };
+
+        start = file.start(maze);
+        end = file.end(maze);
+    }
+
+    // run() searches for the shortest safe path from the start to the end.
+    public void run() throws IOException {
+        path = NO_PATH;
+        found = false;
+        lives = 0;
+        expanded = 0;
+        if((long) height * width == 0){
+            return;
+        }
+
+        // a state is a slot of a tile and the mines used to get there, all in
+        // one number. The borders are only made for the tiles reached.
+        borders = new Border[across * ((height + size - 1) / size)];
+        waiting = 0;
+        long first = state(start, 0);
+        border(first).dist[index(first)] = 0;
+        border(first).prev[index(first)] = -1;
+        offer(estimate(start) * LIVES, first);
+        long goal = -1;
+        while(waiting > 0){
+            // states are ranked by distance plus estimate, and then by mines
+            // used, all in one number, so a state whose rank is no longer
+            // that of its distance was reached again by a shorter way.
+            long rank = ranks[0];
+            long state = take();
+            long space = space(state);
+            int used = (int) (state % LIVES);
+            Border border = border(state);
+            int slot = index(state) / LIVES;
+            long dist = border.dist[index(state)];
+            int best = border.settled[slot];
+            if((dist + estimate(space)) * LIVES + used != rank || (best != 0 && best <= used + 1)){
+                continue;
+            }
+            border.settled[slot] = (byte) (used + 1);
+            expanded++;
+            if(space == end){
+                goal = state;
+                break;
+            }
+
+            Tile tile = tile(space);
+            int[] edges = edges(tile, slot, local(tile, space));
+            for(int i = 0; i < edges.length; i += 4){
+                int mines = used + edges[i + 3];
+                long length = dist + edges[i + 2];
+                long target;
+                int exit = -1;
+                if(edges[i + 1] == TO_END){
+                    target = end;
+                }
+                else{
+                    // crossing into the next tile takes one more step, and
+                    // costs a life if there is a mine there.
+                    exit = edges[i];
+                    target = global(tile, exit) + step(edges[i + 1]);
+                    length++;
+                    if((code(target) & GridSpace.MINE) != 0){
+                        mines++;
+                    }
+                }
+                if(mines >= LIVES){
+                    continue;
+                }
+                long nextState = state(target, mines);
+                Border next = border(nextState);
+                int done = next.settled[index(nextState) / LIVES];
+                int at = index(nextState);
+                if((done != 0 && done <= mines + 1) || next.dist[at] <= length){
+                    continue;
+                }
+                next.dist[at] = length;
+                next.prev[at] = state;
+                next.exit[at] = exit;
+                next.length[at] = edges[i + 2];
+                next.mines[at] = (byte) edges[i + 3];
+                next.dir[at] = (byte) edges[i + 1];
+                offer((length + estimate(target)) * LIVES + mines, nextState);
+            }
+        }
+        if(goal >= 0){
+            found = true;
+            lives = LIVES - (int) (goal % LIVES);
+            refine(goal);
+        }
+        borders = null;
+    }
+
+    // refine() fills in the directions of the path found, searching again
+    // only the tiles it goes through.
+    private void refine(long goal) throws IOException {
+        long total = border(goal).dist[index(goal)];
+        if(total > Integer.MAX_VALUE){
+            throw new IllegalStateException("Path is too long to hold: " + total);
+        }
+        path = new byte[(int) total];
+        // go back along the abstract path, filling each piece in from the back.
+        int at = path.length;
+        for(long state = goal; border(state).prev[index(state)] >= 0; state = border(state).prev[index(state)]){
+            Border border = border(state);
+            int i = index(state);
+            long from = space(border.prev[i]);
+            if(border.exit[i] >= 0){
+                path[--at] = border.dir[i];
+            }
+            Tile tile = tile(from);
+            search(tile, local(tile, from));
+            int to = border.exit[i] >= 0 ? border.exit[i] : local(tile, end);
+            at -= border.length[i];
+            trace(tile, to, border.mines[i], at);
+        }
+    }
+
+    // offer() puts a state into the heap of waiting states.
+    private void offer(long rank, long state){
+        if(waiting == ranks.length){
+            ranks = Arrays.copyOf(ranks, waiting * 2);
+            states = Arrays.copyOf(states, waiting * 2);
+        }
+        int at = waiting++;
+        while(at > 0){
+            int parent = (at - 1) >>> 1;
+            if(ranks[parent] <= rank){
+                break;
+            }
+            ranks[at] = ranks[parent];
+            states[at] = states[parent];
+            at = parent;
+        }
+        ranks[at] = rank;
+        states[at] = state;
+    }
+
+    // take() takes the state of the lowest rank out of the heap.
+    private long take(){
+        long state = states[0];
+        waiting--;
+        long rank = ranks[waiting];
+        long moved = states[waiting];
+        int at = 0;
+        while(2 * at + 1 < waiting){
+            int child = 2 * at + 1;
+            if(child + 1 < waiting && ranks[child + 1] < ranks[child]){
+                child++;
+            }
+            if(ranks[child] >= rank){
+                break;
+            }
+            ranks[at] = ranks[child];
+            states[at] = states[child];
+            at = child;
+        }
+        ranks[at] = rank;
+        states[at] = moved;
+        return state;
+    }
+
+    // state() gives the number of the state of a space, on the edge of its
+    // tile or the start or end, with some mines used.
+    private long state(long space, int used){
+        int row = (int) (space / width), col = (int) (space % width);
+        long tile = (long) (row / size) * across + col / size;
+        int slot;
+        if(space == start){
+            slot = slots - 2;
+        }
+        else if(space == end){
+            slot = slots - 1;
+        }
+        else{
+            // top row, bottom row, left column, then right column; a space in
+            // a corner takes the first that fits.
+            int r = row % size, c = col % size;
+            int rows = Math.min(size, height - row + r);
+            int cols = Math.min(size, width - col + c);
+            if(r == 0){
+                slot = c;
+            }
+            else if(r == rows - 1){
+                slot = size + c;
+            }
+            else if(c == 0){
+                slot = 2 * size + r;
+            }
+            else if(c == cols - 1){
+                slot = 3 * size + r;
+            }
+            else{
+                throw new IllegalStateException("Space " + space + " is not on the edge of its tile");
+            }
+        }
+        return (tile * slots + slot) * LIVES + used;
+    }
+
+    // space() gives the space of a state, undoing state().
+    private long space(long state){
+        long tile = state / LIVES / slots;
+        int slot = (int) (state / LIVES % slots);
+        if(slot == slots - 2){
+            return start;
+        }
+        if(slot == slots - 1){
+            return end;
+        }
+        int top = (int) (tile / across) * size, left = (int) (tile % across) * size;
+        int rows = Math.min(size, height - top), cols = Math.min(size, width - left);
+        int r, c;
+        if(slot < size){
+            r = 0;
+            c = slot;
+        }
+        else if(slot < 2 * size){
+            r = rows - 1;
+            c = slot - size;
+        }
+        else if(slot < 3 * size){
+            r = slot - 2 * size;
+            c = 0;
+        }
+        else{
+            r = slot - 3 * size;
+            c = cols - 1;
+        }
+        return (long) (top + r) * width + left + c;
+    }
+
+    // border() gives the border of the tile of a state, making it the first
+    // time the tile is reached.
+    private Border border(long state){
+        int tile = (int) (state / LIVES / slots);
+        if(borders[tile] == null){
+            borders[tile] = new Border(slots);
+        }
+        return borders[tile];
+    }
+
+    // index() gives where a state is kept in the arrays of its border.
+    private int index(long state){
+        return (int) (state % ((long) slots * LIVES));
+    }
+
+    // edges() gives the edges out of a tile from one of its spaces, searching
+    // the tile for them the first time.
+    //
+    // Returns:
+    // int[], four numbers per edge: the space it leaves the tile from, the
+    // direction it leaves in, or TO_END, its length, and its mines.
+    private int[] edges(Tile tile, int slot, int source){
+        if(tile.edges[slot] == null){
+            tile.edges[slot] = search(tile, source);
+        }
+        return tile.edges[slot];
+    }
+
+    // search() searches a tile alone from one of its spaces, a distance at a
+    // time, over (space, mines used) states. A state is only taken further
+    // if its space hasn't been reached with as few mines, so every way out
+    // is found with each count of mines that could make it shorter.
+    //
+    // Returns:
+    // int[], the edges out of the tile, as for edges().
+    private int[] search(Tile tile, int source){
+        Arrays.fill(fewest, 0, tile.cells.length, (byte) 0);
+        queue.clear();
+        int[] edges = new int[16];
+        int count = 0;
+        long endLocal = local(tile, end);
+        via[source * LIVES] = GridSpace.START;
+        fewest[source] = 1;
+        queue.add(source * LIVES);
+
+        int dist = 0;
+        int layer = queue.size();
+        while(!queue.isEmpty()){
+            if(layer == 0){
+                dist++;
+                layer = queue.size();
+            }
+            layer--;
+            int state = queue.remove();
+            int space = state / LIVES;
+            int used = state % LIVES;
+            int row = space / tile.cols;
+            int col = space % tile.cols;
+            // the end is a way out of the tile; no path needs to go past it.
+            if(space == endLocal){
+                if(count + 4 > edges.length){
+                    edges = Arrays.copyOf(edges, edges.length * 2);
+                }
+                edges[count++] = space;
+                edges[count++] = TO_END;
+                edges[count++] = dist;
+                edges[count++] = used;
+                continue;
+            }
+            for(int dir = GridSpace.UP; dir <= GridSpace.LEFT; dir <<= 1){
+                if((tile.cells[space] & dir) == 0){
+                    continue;
+                }
+                int r = row, c = col;
+                switch(dir){
+                    case GridSpace.UP: r--; break;
+                    case GridSpace.DOWN: r++; break;
+                    case GridSpace.LEFT: c--; break;
+                    default: c++; break;
+                }
+                // a door out of the tile, but not out of the maze, is a way out.
+                if(r < 0 || r >= tile.rows || c < 0 || c >= tile.cols){
+                    if(tile.row + r < 0 || tile.row + r >= height || tile.col + c < 0 || tile.col + c >= width){
+                        continue;
+                    }
+                    if(count + 4 > edges.length){
+                        edges = Arrays.copyOf(edges, edges.length * 2);
+                    }
+                    edges[count++] = space;
+                    edges[count++] = dir;
+                    edges[count++] = dist;
+                    edges[count++] = used;
+                    continue;
+                }
+                int next = r * tile.cols + c;
+                int nextUsed = (tile.cells[next] & GridSpace.MINE) != 0 ? used + 1 : used;
+                if(nextUsed >= LIVES || (fewest[next] != 0 && nextUsed + 1 >= fewest[next])){
+                    continue;
+                }
+                fewest[next] = (byte) (nextUsed + 1);
+                via[next * LIVES + nextUsed] = (byte) dir;
+                queue.add(next * LIVES + nextUsed);
+            }
+        }
+        return Arrays.copyOf(edges, count);
+    }
+
+    // trace() follows the directions of the last search() back from a state
+    // to its source, filling them into the path.
+    //
+    // Parameters:
+    // tile: the tile searched
+    // space: the space to trace back from, in the tile
+    // used: the mines used in the state it was reached with
+    // at: where in the path the directions start.
+    private void trace(Tile tile, int space, int used, int at){
+        int i = at;
+        // count the steps first, then fill the directions in from the back.
+        for(int s = space, u = used; via[s * LIVES + u] != GridSpace.START; i++){
+            int dir = via[s * LIVES + u];
+            if((tile.cells[s] & GridSpace.MINE) != 0){
+                u--;
+            }
+            s -= localStep(tile, dir);
+        }
+        while(i > at){
+            int dir = via[space * LIVES + used];
+            path[--i] = (byte) dir;
+            if((tile.cells[space] & GridSpace.MINE) != 0){
+                used--;
+            }
+            space -= localStep(tile, dir);
+        }
+    }
+
+    // tile() gives the tile holding a space, reading it from the file if it
+    // isn't in the cache.
+    private Tile tile(long space) throws IOException {
+        int row = (int) (space / width) / size * size;
+        int col = (int) (space % width) / size * size;
+        long key = (long) (row / size) * ((width + size - 1) / size) + col / size;
+        Tile tile = tiles.get(key);
+        if(tile == null){
+            tile = new Tile(row, col, Math.min(size, height - row), Math.min(size, width - col), slots);
+            file.read(maze, row, col, tile.rows, tile.cols, tile.cells);
+            tiles.put(key, tile);
+            loads++;
+        }
+        return tile;
+    }
+
+    // code() gives the code of a space.
+    private int code(long space) throws IOException {
+        Tile tile = tile(space);
+        return tile.cells[local(tile, space)];
+    }
+
+    // local() gives the number of a space within a tile, or -1 if it isn't in it.
+    private int local(Tile tile, long space){
+        long row = space / width - tile.row;
+        long col = space % width - tile.col;
+        if(row < 0 || row >= tile.rows || col < 0 || col >= tile.cols){
+            return -1;
+        }
+        return (int) row * tile.cols + (int) col;
+    }
+
+    // global() gives the number in the maze of a space in a tile.
+    private long global(Tile tile, int local){
+        return (long) (tile.row + local / tile.cols) * width + tile.col + local % tile.cols;
+    }
+
+    // step() gives how far a direction moves the space number, in the maze.
+    private long step(int dir){
+        switch(dir){
+            case GridSpace.UP: return -width;
+            case GridSpace.DOWN: return width;
+            case GridSpace.LEFT: return -1;
+            default: return 1;
+        }
+    }
+
+    // localStep() gives how far a direction moves the space number, in a tile.
+    private static int localStep(Tile tile, int dir){
+        switch(dir){
+            case GridSpace.UP: return -tile.cols;
+            case GridSpace.DOWN: return tile.cols;
+            case GridSpace.LEFT: return -1;
+            default: return 1;
+        }
+    }
+
+    // estimate() gives the Manhattan distance from a space to the end.
+    private long estimate(long space){
+        return Math.abs(space / width - end / width) + Math.abs(space % width - end % width);
+    }
+
+    // found() tells whether the last search found a path.
+    public boolean found(){
+        return found;
+    }
+
+    // path() gives the directions of the path found, from start to end, as
+    // GridSpace direction codes. It is empty if there is no path.
+    public byte[] path(){
+        return path;
+    }
+
+    // lives() gives the lives left at the end of the path found.
+    public int lives(){
+        return lives;
+    }
+
+    // expanded() gives the count of abstract states the last search expanded.
+    public long expanded(){
+        return expanded;
+    }
+
+    // loads() gives the count of tiles read from the file so far.
+    public long loads(){
+        return loads;
+    }
+}
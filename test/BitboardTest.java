@@ -0,0 +1,144 @@
+/*
+ * Class: BitboardTest
+ *
+ * These tests check the bitboard flood against a search a space at
+ * a time for the fewest mines each space can be reached with, and
+ * the bitboard distance against Dijkstra, on random mazes narrow
+ * and wide enough to take several words a row.
+ *
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BitboardTest
+{
+    @Test
+    public void floodReachesWhatASearchDoes(){
+        Random random = new Random(18);
+        for(int trial = 0; trial < 1500; trial++){
+            int[] nums = trial % 2 == 0 ? generated(random) : scrambled(random);
+            GridArray grid = grid(nums);
+            Bitboard board = new Bitboard(grid);
+            int[] fewest = fewestMines(grid);
+            for(int hits = 0; hits <= 3; hits++){
+                boolean[] reached = board.reachable(hits);
+                for(int space = 0; space < grid.size(); space++){
+                    assertEquals(fewest[space] <= hits, reached[space],
+                            "space " + space + " of maze " + trial + " with " + hits + " hits");
+                }
+                assertEquals(fewest[grid.end] <= hits, board.reaches(hits),
+                        "the end of maze " + trial + " with " + hits + " hits");
+            }
+        }
+    }
+
+    @Test
+    public void distanceMatchesDijkstra(){
+        Random random = new Random(81);
+        SolverContext context = new SolverContext();
+        for(int trial = 0; trial < 1500; trial++){
+            int[] nums = trial % 2 == 0 ? generated(random) : scrambled(random);
+            Bitboard board = new Bitboard(grid(nums));
+            int distance = board.distance();
+            context.load(nums, nums.length);
+            context.solve(SearchEngine.DIJKSTRA);
+            String maze = "maze " + trial;
+            assertEquals(context.found() ? context.length() : -1, distance, "distance of " + maze);
+            if(distance >= 0){
+                assertEquals(context.lives(), board.lives(), "lives of " + maze);
+            }
+        }
+    }
+
+    // fewestMines() finds the fewest mines each space can be reached with
+    // from the start, going a space at a time, mines last (a 0-1 BFS). A
+    // mine on the start isn't hit.
+    //
+    // Returns:
+    // int[], the fewest mines for each space, or Integer.MAX_VALUE if it
+    // can't be reached at all.
+    private static int[] fewestMines(GridArray grid){
+        int[] fewest = new int[grid.size()];
+        Arrays.fill(fewest, Integer.MAX_VALUE);
+        int[] deque = new int[grid.size() * 8 + 2];
+        int head = grid.size() * 4, tail = head;
+        fewest[grid.start] = 0;
+        deque[tail++] = grid.start;
+        while(head < tail){
+            int space = deque[head++];
+            for(int dir = GridSpace.UP; dir <= GridSpace.LEFT; dir <<= 1){
+                if(!grid.has(space, dir)){
+                    continue;
+                }
+                int next = space + grid.step(dir);
+                int mine = grid.has(next, GridSpace.MINE) ? 1 : 0;
+                if(fewest[space] + mine < fewest[next]){
+                    fewest[next] = fewest[space] + mine;
+                    if(mine == 0){
+                        deque[--head] = next;
+                    }
+                    else{
+                        deque[tail++] = next;
+                    }
+                }
+            }
+        }
+        return fewest;
+    }
+
+    // generated() makes a maze with MazeGenerator, some of them more than a
+    // word wide.
+    private static int[] generated(Random random){
+        MazeGenerator.Shape[] shapes = MazeGenerator.Shape.values();
+        int width = random.nextBoolean() ? 1 + random.nextInt(20) : 60 + random.nextInt(150);
+        return MazeGenerator.generate(1 + random.nextInt(20), width, random.nextDouble() * 0.4,
+                shapes[random.nextInt(shapes.length)], random.nextLong());
+    }
+
+    // scrambled() makes a maze of random doors, each one way or both, with
+    // mines, a start and an end anywhere.
+    private static int[] scrambled(Random random){
+        int height = 1 + random.nextInt(10), width = 1 + random.nextInt(random.nextBoolean() ? 10 : 140);
+        int[] nums = new int[height * width + 2];
+        nums[0] = height;
+        nums[1] = width;
+        for(int space = 0; space < height * width; space++){
+            int row = space / width, col = space % width;
+            int code = random.nextInt(16) | random.nextInt(16);
+            // no door leads out of the maze.
+            if(row == 0){
+                code &= ~GridSpace.UP;
+            }
+            if(row == height - 1){
+                code &= ~GridSpace.DOWN;
+            }
+            if(col == 0){
+                code &= ~GridSpace.LEFT;
+            }
+            if(col == width - 1){
+                code &= ~GridSpace.RIGHT;
+            }
+            if(random.nextInt(4) == 0){
+                code |= GridSpace.MINE;
+            }
+            nums[space + 2] = code;
+        }
+        nums[2 + random.nextInt(height * width)] |= GridSpace.START;
+        nums[2 + random.nextInt(height * width)] |= GridSpace.END;
+        return nums;
+    }
+
+    // grid() builds a grid from the numbers of a maze.
+    private static GridArray grid(int[] nums){
+        GridArray grid = new GridArray(nums[0], nums[1]);
+        for(int space = 0; space < grid.size(); space++){
+            grid.set(space, nums[space + 2]);
+        }
+        return grid;
+    }
+}
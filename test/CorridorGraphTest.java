@@ -0,0 +1,135 @@
+/*
+ * Class: CorridorGraphTest
+ *
+ * These tests check that searching a maze shrunk to its junctions
+ * finds paths as short, with as many lives left, as Dijkstra does
+ * on the whole maze, on generated mazes and on random ones with
+ * one-way doors, and that the paths it fills back in are safe ways
+ * from the start to the end.
+ *
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CorridorGraphTest
+{
+    @Test
+    public void graphMatchesDijkstra(){
+        Random random = new Random(17);
+        SolverContext context = new SolverContext();
+        for(int trial = 0; trial < 2000; trial++){
+            int[] nums = trial % 2 == 0 ? generated(random) : scrambled(random);
+            GridArray grid = grid(nums);
+            CorridorGraph graph = new CorridorGraph(grid);
+            graph.run();
+            context.load(nums, nums.length);
+            context.solve(SearchEngine.DIJKSTRA);
+
+            String maze = "maze " + trial;
+            assertEquals(context.found(), graph.found(), "whether " + maze + " has a path");
+            if(graph.found()){
+                assertEquals(context.length(), graph.path().length, "length of " + maze);
+                assertEquals(context.lives(), graph.lives(), "lives of " + maze);
+                assertEquals(graph.lives(), walk(grid, graph.path()), "lives walking " + maze);
+            }
+        }
+    }
+
+    @Test
+    public void repeatedLayoutsSolveAsTheyDidFirst(){
+        Random random = new Random(71);
+        int[][] layouts = new int[6][];
+        for(int i = 0; i < layouts.length; i++){
+            layouts[i] = generated(random);
+        }
+        // the one context keeps the graphs of the layouts it has seen, while a
+        // new context for each maze has to build them.
+        SolverContext context = new SolverContext();
+        for(int trial = 0; trial < 60; trial++){
+            int[] nums = layouts[random.nextInt(layouts.length)];
+            context.load(nums, nums.length);
+            context.solve(SearchEngine.CORRIDORS);
+            SolverContext fresh = new SolverContext();
+            fresh.load(nums, nums.length);
+            fresh.solve(SearchEngine.CORRIDORS);
+            assertArrayEquals(fresh.path(), context.path(), "path of maze " + trial);
+            assertEquals(fresh.lives(), context.lives(), "lives of maze " + trial);
+        }
+    }
+
+    // generated() makes a maze with MazeGenerator, mostly of corridors.
+    private static int[] generated(Random random){
+        MazeGenerator.Shape[] shapes = MazeGenerator.Shape.values();
+        MazeGenerator.Shape shape = random.nextBoolean() ? shapes[random.nextInt(shapes.length)]
+                : MazeGenerator.Shape.CORRIDOR;
+        return MazeGenerator.generate(1 + random.nextInt(30), 1 + random.nextInt(30),
+                random.nextDouble() * 0.3, shape, random.nextLong());
+    }
+
+    // scrambled() makes a small maze of random doors, each one way or both,
+    // with mines, a start and an end anywhere.
+    private static int[] scrambled(Random random){
+        int height = 1 + random.nextInt(8), width = 1 + random.nextInt(8);
+        int[] nums = new int[height * width + 2];
+        nums[0] = height;
+        nums[1] = width;
+        for(int space = 0; space < height * width; space++){
+            int row = space / width, col = space % width;
+            int code = random.nextInt(16);
+            // no door leads out of the maze.
+            if(row == 0){
+                code &= ~GridSpace.UP;
+            }
+            if(row == height - 1){
+                code &= ~GridSpace.DOWN;
+            }
+            if(col == 0){
+                code &= ~GridSpace.LEFT;
+            }
+            if(col == width - 1){
+                code &= ~GridSpace.RIGHT;
+            }
+            if(random.nextInt(5) == 0){
+                code |= GridSpace.MINE;
+            }
+            nums[space + 2] = code;
+        }
+        nums[2 + random.nextInt(height * width)] |= GridSpace.START;
+        nums[2 + random.nextInt(height * width)] |= GridSpace.END;
+        return nums;
+    }
+
+    // grid() builds a grid from the numbers of a maze.
+    private static GridArray grid(int[] nums){
+        GridArray grid = new GridArray(nums[0], nums[1]);
+        for(int space = 0; space < grid.size(); space++){
+            grid.set(space, nums[space + 2]);
+        }
+        return grid;
+    }
+
+    // walk() follows a path from the start, through doors only, and checks
+    // the player lives to reach the end.
+    //
+    // Returns:
+    // int, the lives left at the end.
+    private static int walk(GridArray grid, byte[] path){
+        int space = grid.start, left = GridArray.LIVES;
+        for(byte dir: path){
+            assertTrue(grid.has(space, dir), "the path goes through a wall");
+            space += grid.step(dir);
+            if(grid.has(space, GridSpace.MINE)){
+                left--;
+            }
+            assertTrue(left >= 1, "the path kills the player");
+        }
+        assertEquals(grid.end, space, "where the path ends");
+        return left;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Class: DynamicSearchTest
+ *
+ * These tests make random edits to mazes through Maze, which keeps
+ * its solution up to date with a DynamicSearch, and check after
+ * each edit that the directions and lives are exactly those of a
+ * fresh solve of the edited maze.
+ *
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DynamicSearchTest
+{
+    private static final String[] SIDES = {"up", "down", "left", "right"};
+
+    @Test
+    public void editsGiveTheSameAnswerAsAFreshSolve(){
+        Random random = new Random(13);
+        MazeGenerator.Shape[] shapes = MazeGenerator.Shape.values();
+        for(int trial = 0; trial < 150; trial++){
+            int height = 2 + random.nextInt(9);
+            int width = 2 + random.nextInt(9);
+            int[] nums = MazeGenerator.generate(height, width, random.nextDouble() * 0.4,
+                    shapes[random.nextInt(shapes.length)], random.nextLong());
+            Maze maze = new Maze(nums, nums.length);
+            for(int edit = 0; edit < 40; edit++){
+                String what = edit(maze, nums, random);
+                Maze fresh = new Maze(nums, nums.length);
+                String where = "maze " + trial + " after edit " + edit + ", " + what;
+                assertArrayEquals(fresh.getPath(), maze.getPath(), "directions of " + where);
+                assertEquals(fresh.getLivesLeft(), maze.getLivesLeft(), "lives of " + where);
+            }
+        }
+    }
+
+    // edit() makes one random edit to a maze, and the same one to the numbers
+    // encoding it.
+    //
+    // Returns:
+    // String, what the edit was.
+    private static String edit(Maze maze, int[] nums, Random random){
+        int height = nums[0], width = nums[1];
+        int row = random.nextInt(height), col = random.nextInt(width);
+        int space = row * width + col + 2;
+        switch(random.nextInt(6)){
+            case 0:
+                for(int i = 2; i < nums.length; i++){
+                    nums[i] &= ~GridSpace.START;
+                }
+                nums[space] |= GridSpace.START;
+                maze.moveStart(row, col);
+                return "start to " + row + "," + col;
+            case 1:
+                for(int i = 2; i < nums.length; i++){
+                    nums[i] &= ~GridSpace.END;
+                }
+                nums[space] |= GridSpace.END;
+                maze.moveEnd(row, col);
+                return "end to " + row + "," + col;
+            case 2:
+                boolean mine = (nums[space] & GridSpace.MINE) == 0;
+                nums[space] = mine ? nums[space] | GridSpace.MINE : nums[space] & ~GridSpace.MINE;
+                maze.setMine(row, col, mine);
+                return (mine ? "mine on " : "mine off ") + row + "," + col;
+            default:
+                String side = SIDES[random.nextInt(SIDES.length)];
+                int dir = GridArray.code(side);
+                int r = row + (dir == GridSpace.DOWN ? 1 : dir == GridSpace.UP ? -1 : 0);
+                int c = col + (dir == GridSpace.RIGHT ? 1 : dir == GridSpace.LEFT ? -1 : 0);
+                if(r < 0 || r >= height || c < 0 || c >= width){
+                    return "nothing";
+                }
+                int other = r * width + c + 2;
+                int back = GridArray.code(side.equals("up") ? "down" : side.equals("down") ? "up"
+                        : side.equals("left") ? "right" : "left");
+                nums[space] ^= dir;
+                nums[other] = (nums[space] & dir) != 0 ? nums[other] | back : nums[other] & ~back;
+                maze.toggleWall(row, col, side);
+                return "wall " + side + " of " + row + "," + col;
+        }
+    }
+}
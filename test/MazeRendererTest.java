@@ -0,0 +1,164 @@
+/*
+ * Class: MazeRendererTest
+ *
+ * These tests check that small mazes are still drawn exactly as the
+ * first solver drew them, that a window is drawn as the same part
+ * of the full drawing, that the path is drawn over the spaces it
+ * goes through, and that the overview of a large maze stays within
+ * its bounds.
+ *
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MazeRendererTest
+{
+    // the count of mazes, from the top of baseline.txt, drawn in
+    // baseline-drawings.txt.
+    private static final int DRAWINGS = 40;
+
+    @Test
+    public void smallMazesAreDrawnAsTheFirstSolverDrewThem() throws IOException {
+        StringBuilder drawings = new StringBuilder();
+        try (MazeReader mazes = new MazeReader(Channels.newChannel(resource("baseline.txt")))) {
+            for(int maze = 0; maze < DRAWINGS && mazes.next(); maze++){
+                new MazeRenderer(grid(mazes.values()), null).draw(drawings);
+            }
+        }
+        assertEquals(text(resource("baseline-drawings.txt")), drawings.toString());
+    }
+
+    @Test
+    public void windowsArePartsOfTheFullDrawing() throws IOException {
+        Random random = new Random(19);
+        MazeGenerator.Shape[] shapes = MazeGenerator.Shape.values();
+        for(int trial = 0; trial < 300; trial++){
+            int[] nums = MazeGenerator.generate(1 + random.nextInt(12), 1 + random.nextInt(12),
+                    random.nextDouble() * 0.3, shapes[random.nextInt(shapes.length)], random.nextLong());
+            GridArray grid = grid(nums);
+            Maze maze = new Maze(nums, nums.length);
+            MazeRenderer renderer = new MazeRenderer(grid, maze.getPath());
+            StringBuilder full = new StringBuilder();
+            renderer.drawAll(full);
+            String[] lines = full.toString().split("\n");
+
+            int top = random.nextInt(grid.height), left = random.nextInt(grid.width);
+            int rows = 1 + random.nextInt(grid.height), cols = 1 + random.nextInt(grid.width);
+            int bottom = Math.min(grid.height, top + rows), right = Math.min(grid.width, left + cols);
+            StringBuilder expected = new StringBuilder("Rows " + top + " to " + (bottom - 1) + ", columns "
+                    + left + " to " + (right - 1) + " of " + grid.height + "x" + grid.width + ":\n");
+            for(int line = 2 * top; line <= 2 * bottom; line++){
+                expected.append(lines[line], 4 * left, 4 * right + 1).append('\n');
+            }
+            expected.append('\n');
+            StringBuilder window = new StringBuilder();
+            renderer.drawWindow(window, top, left, rows, cols);
+            assertEquals(expected.toString(), window.toString(), "window of maze " + trial);
+        }
+    }
+
+    @Test
+    public void thePathIsDrawnOverItsSpaces() throws IOException {
+        Random random = new Random(91);
+        MazeGenerator.Shape[] shapes = MazeGenerator.Shape.values();
+        for(int trial = 0; trial < 300; trial++){
+            int[] nums = MazeGenerator.generate(2 + random.nextInt(12), 2 + random.nextInt(12),
+                    random.nextDouble() * 0.4, shapes[random.nextInt(shapes.length)], random.nextLong());
+            GridArray grid = grid(nums);
+            Maze maze = new Maze(nums, nums.length);
+            byte[] path = maze.getPath();
+            if(path.length == 0){
+                continue;
+            }
+            StringBuilder drawing = new StringBuilder();
+            new MazeRenderer(grid, path).drawAll(drawing);
+
+            // every space of the path but the start and end is marked, with an
+            // X if the player steps on a mine there.
+            int hits = 0;
+            for(int space = grid.start, i = 0; i < path.length - 1; i++){
+                space += grid.step(path[i]);
+                if(grid.has(space, GridSpace.MINE)){
+                    hits++;
+                }
+            }
+            assertEquals(path.length - 1, count(drawing, "^>v<X"), "marks on maze " + trial);
+            assertEquals(hits, count(drawing, "X"), "mines hit on maze " + trial);
+        }
+    }
+
+    @Test
+    public void largeMazesAreDrawnAsBoundedOverviews() throws IOException {
+        int[] nums = MazeGenerator.generate(1500, 700, 0.02, MazeGenerator.Shape.BRAID, 19);
+        GridArray grid = grid(nums);
+        Maze maze = new Maze(nums, nums.length);
+        assertTrue(maze.getPath().length > 0, "the maze has no path to draw");
+        StringBuilder drawing = new StringBuilder();
+        new MazeRenderer(grid, maze.getPath()).draw(drawing);
+
+        String[] lines = drawing.toString().split("\n");
+        assertTrue(lines[0].startsWith("Overview of 1500x700"), lines[0]);
+        assertTrue(lines.length - 1 <= MazeRenderer.OVERVIEW_HEIGHT, lines.length + " lines");
+        for(int line = 1; line < lines.length; line++){
+            assertTrue(lines[line].length() <= MazeRenderer.OVERVIEW_WIDTH, "line " + line + " is too wide");
+        }
+        assertEquals(1, count(drawing, "S"), "starts drawn");
+        assertEquals(1, count(drawing, "E"), "ends drawn");
+        assertTrue(count(drawing, "o") > 0, "the path isn't drawn");
+    }
+
+    // count() gives the count of characters of a drawing that are any of
+    // some characters, outside its first line if it's an overview.
+    private static int count(CharSequence drawing, String characters){
+        String text = drawing.toString();
+        if(text.startsWith("Overview")){
+            text = text.substring(text.indexOf('\n'));
+        }
+        int count = 0;
+        for(int i = 0; i < text.length(); i++){
+            if(characters.indexOf(text.charAt(i)) >= 0){
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // grid() builds a grid from the numbers of a maze.
+    private static GridArray grid(int[] nums){
+        GridArray grid = new GridArray(nums[0], nums[1]);
+        for(int space = 0; space < grid.size(); space++){
+            grid.set(space, nums[space + 2]);
+        }
+        return grid;
+    }
+
+    // text() reads the whole of a file kept with the tests.
+    private static String text(InputStream stream) throws IOException {
+        try (InputStream in = stream) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for(int read; (read = in.read(buffer)) > 0; ){
+                bytes.write(buffer, 0, read);
+            }
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // resource() opens a file kept with the tests.
+    private static InputStream resource(String name){
+        InputStream stream = MazeRendererTest.class.getResourceAsStream(name);
+        assertNotNull(stream, name + " is missing");
+        return stream;
+    }
+}
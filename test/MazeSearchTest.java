@@ -0,0 +1,54 @@
+/*
+ * Class: MazeSearchTest
+ *
+ * These tests check MazeSearch against the answers the first
+ * solver, the old Maze.solveMaze(), gave. baseline.txt holds mazes
+ * that solver got right, with the shortest path and the most lives
+ * left, many of them with more than one equally good path, and
+ * baseline-solutions.txt holds the directions and lives it printed
+ * for each. Dijkstra has to print the same ones.
+ *
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class MazeSearchTest
+{
+    // the count of mazes in baseline.txt.
+    private static final int MAZES = 250;
+
+    @Test
+    public void dijkstraGivesTheFirstSolversAnswers() throws IOException {
+        try (MazeReader mazes = new MazeReader(Channels.newChannel(resource("baseline.txt")));
+             BufferedReader solutions = new BufferedReader(
+                     new InputStreamReader(resource("baseline-solutions.txt"), StandardCharsets.UTF_8))) {
+            int line = 0;
+            while(mazes.next()){
+                line++;
+                Maze maze = new Maze(mazes.values(), mazes.count(), SearchEngine.DIJKSTRA);
+                StringBuilder path = new StringBuilder();
+                Maze.writePath(path, maze.getPath(), false);
+                assertEquals(solutions.readLine(), path.toString().trim(), "directions of maze " + line);
+                assertEquals(Integer.parseInt(solutions.readLine()), maze.getLivesLeft(), "lives of maze " + line);
+            }
+            assertEquals(MAZES, line);
+        }
+    }
+
+    // resource() opens a file kept with the tests.
+    private static InputStream resource(String name){
+        InputStream stream = MazeSearchTest.class.getResourceAsStream(name);
+        assertNotNull(stream, name + " is missing");
+        return stream;
+    }
+}
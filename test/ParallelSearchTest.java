@@ -0,0 +1,74 @@
+/*
+ * Class: ParallelSearchTest
+ *
+ * These tests check that the parallel engine finds paths as short,
+ * with as many lives left, as Dijkstra does, on mazes both small
+ * and large enough to be split between threads, and that the paths
+ * it finds are safe ways from the start to the end.
+ *
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ParallelSearchTest
+{
+    @Test
+    public void parallelMatchesDijkstra(){
+        Random random = new Random(14);
+        MazeGenerator.Shape[] shapes = MazeGenerator.Shape.values();
+        // one context is used for every maze, so each run starts from what the
+        // last one left behind, in a grid grown or shrunk for the next maze.
+        SolverContext parallel = new SolverContext();
+        SolverContext dijkstra = new SolverContext();
+        for(int trial = 0; trial < 120; trial++){
+            int side = trial % 4 == 0 ? 150 + random.nextInt(250) : 1 + random.nextInt(40);
+            int[] nums = MazeGenerator.generate(side, side + random.nextInt(20), random.nextDouble() * 0.4,
+                    shapes[random.nextInt(shapes.length)], random.nextLong());
+            parallel.load(nums, nums.length);
+            parallel.solve(SearchEngine.PARALLEL);
+            dijkstra.load(nums, nums.length);
+            dijkstra.solve(SearchEngine.DIJKSTRA);
+
+            String maze = "maze " + trial;
+            assertEquals(dijkstra.found(), parallel.found(), "whether " + maze + " has a path");
+            assertEquals(dijkstra.length(), parallel.length(), "length of " + maze);
+            assertEquals(dijkstra.lives(), parallel.lives(), "lives of " + maze);
+            if(parallel.found()){
+                assertEquals(parallel.lives(), walk(nums, parallel.path()), "lives walking " + maze);
+            }
+        }
+    }
+
+    // walk() follows a path through a maze from its start, through doors only,
+    // and checks it ends at the end.
+    //
+    // Returns:
+    // int, the lives left at the end, or 0 if the path isn't a safe way there.
+    private static int walk(int[] nums, byte[] path){
+        int width = nums[1];
+        int start = 0, end = 0;
+        for(int i = 2; i < nums.length; i++){
+            if((nums[i] & GridSpace.START) != 0){
+                start = i - 2;
+            }
+            if((nums[i] & GridSpace.END) != 0){
+                end = i - 2;
+            }
+        }
+        int space = start, lives = GridArray.LIVES;
+        for(byte dir: path){
+            if((nums[space + 2] & dir) == 0){
+                return 0;
+            }
+            space += dir == GridSpace.UP ? -width : dir == GridSpace.DOWN ? width : dir == GridSpace.LEFT ? -1 : 1;
+            if((nums[space + 2] & GridSpace.MINE) != 0 && --lives == 0){
+                return 0;
+            }
+        }
+        return space == end ? lives : 0;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Class: ResourceSearchTest
+ *
+ * These tests check ResourceSearch against a plain Dijkstra over
+ * every (space, lives left) state, on random mazes under random
+ * rules, and check that the paths it finds are safe ways to the
+ * end that cost what it says.
+ *
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResourceSearchTest
+{
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    @Test
+    public void matchesAStateByStateSearch(){
+        Random random = new Random(16);
+        MazeGenerator.Shape[] shapes = MazeGenerator.Shape.values();
+        for(int trial = 0; trial < 600; trial++){
+            int height = 1 + random.nextInt(12), width = 1 + random.nextInt(12);
+            int[] nums = MazeGenerator.generate(height, width, random.nextDouble() * 0.5,
+                    shapes[random.nextInt(shapes.length)], random.nextLong());
+            GridArray grid = grid(nums);
+            MazeRules rules = rules(grid, random);
+            ResourceSearch search = new ResourceSearch(grid, rules);
+            search.run();
+
+            int[] best = reference(grid, rules);
+            String maze = "maze " + trial;
+            assertEquals(best != null, search.found(), "whether " + maze + " has a path");
+            if(best == null){
+                continue;
+            }
+            assertEquals(best[0], search.cost(), "cost of " + maze);
+            assertEquals(best[1], search.lives(), "lives of " + maze);
+            assertArrayEquals(new int[]{search.cost(), search.lives()}, walk(grid, rules, search.path()),
+                    "walking the path of " + maze);
+        }
+    }
+
+    @Test
+    public void standardRulesGiveDijkstrasLengthAndLives(){
+        Random random = new Random(61);
+        MazeGenerator.Shape[] shapes = MazeGenerator.Shape.values();
+        SolverContext context = new SolverContext();
+        for(int trial = 0; trial < 300; trial++){
+            int[] nums = MazeGenerator.generate(1 + random.nextInt(20), 1 + random.nextInt(20),
+                    random.nextDouble() * 0.4, shapes[random.nextInt(shapes.length)], random.nextLong());
+            ResourceSearch search = new ResourceSearch(grid(nums), MazeRules.STANDARD);
+            search.run();
+            context.load(nums, nums.length);
+            context.solve(SearchEngine.DIJKSTRA);
+            assertEquals(context.found(), search.found(), "whether maze " + trial + " has a path");
+            assertEquals(context.length(), search.path().length, "length of maze " + trial);
+            assertEquals(context.lives(), search.found() ? search.lives() : GridArray.LIVES,
+                    "lives of maze " + trial);
+        }
+    }
+
+    // grid() builds a grid from the numbers of a maze.
+    private static GridArray grid(int[] nums){
+        GridArray grid = new GridArray(nums[0], nums[1]);
+        for(int space = 0; space < grid.size(); space++){
+            grid.set(space, nums[space + 2]);
+        }
+        return grid;
+    }
+
+    // rules() makes up random rules: some lives, some damage, and either a
+    // step and mine cost or a cost for every space.
+    private static MazeRules rules(GridArray grid, Random random){
+        int lives = 1 + random.nextInt(8);
+        int damage = random.nextInt(4);
+        if(random.nextBoolean()){
+            return new MazeRules(lives, damage, 1 + random.nextInt(5), 1 + random.nextInt(5));
+        }
+        int[] costs = new int[grid.size()];
+        for(int space = 0; space < costs.length; space++){
+            costs[space] = 1 + random.nextInt(9);
+        }
+        return new MazeRules(lives, damage, costs);
+    }
+
+    // reference() finds the cheapest safe path's cost, and the most lives
+    // left at that cost, with Dijkstra over every (space, lives left) state,
+    // picking the cheapest state left by looking through all of them.
+    //
+    // Returns:
+    // int[], the cost and lives, or null if the end can't be reached.
+    private static int[] reference(GridArray grid, MazeRules rules){
+        int states = rules.lives + 1;
+        int[] cost = new int[grid.size() * states];
+        boolean[] done = new boolean[cost.length];
+        Arrays.fill(cost, UNREACHED);
+        cost[grid.start * states + rules.lives] = 0;
+        while(true){
+            int at = -1;
+            for(int state = 0; state < cost.length; state++){
+                if(!done[state] && cost[state] != UNREACHED && (at < 0 || cost[state] < cost[at])){
+                    at = state;
+                }
+            }
+            if(at < 0){
+                break;
+            }
+            done[at] = true;
+            int space = at / states, left = at % states;
+            for(int dir = GridSpace.UP; dir <= GridSpace.LEFT; dir <<= 1){
+                if(!grid.has(space, dir)){
+                    continue;
+                }
+                int next = space + grid.step(dir);
+                int nextLeft = grid.has(next, GridSpace.MINE) ? left - rules.damage : left;
+                if(nextLeft < 1){
+                    continue;
+                }
+                int nextState = next * states + nextLeft;
+                cost[nextState] = Math.min(cost[nextState], cost[at] + rules.cost(grid, next));
+            }
+        }
+        int[] best = null;
+        for(int left = rules.lives; left >= 1; left--){
+            int c = cost[grid.end * states + left];
+            if(c != UNREACHED && (best == null || c < best[0])){
+                best = new int[]{c, left};
+            }
+        }
+        return best;
+    }
+
+    // walk() follows a path from the start, through doors only, and checks
+    // the player lives to reach the end.
+    //
+    // Returns:
+    // int[], the cost of the path and the lives left at the end.
+    private static int[] walk(GridArray grid, MazeRules rules, byte[] path){
+        int space = grid.start, left = rules.lives, cost = 0;
+        for(byte dir: path){
+            assertTrue(grid.has(space, dir), "the path goes through a wall");
+            space += grid.step(dir);
+            cost += rules.cost(grid, space);
+            if(grid.has(space, GridSpace.MINE)){
+                left -= rules.damage;
+            }
+            assertTrue(left >= 1, "the path kills the player");
+        }
+        assertEquals(grid.end, space, "where the path ends");
+        return new int[]{cost, left};
+    }
+}
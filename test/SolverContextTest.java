@@ -0,0 +1,81 @@
+/*
+ * Class: SolverContextTest
+ *
+ * These tests check that a SolverContext, once it has grown to fit
+ * the mazes it is given, solves them with Dijkstra, A* or the
+ * bidirectional search without allocating, as counted by the JVM
+ * for the thread solving them.
+ *
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SolverContextTest
+{
+    // the most bytes solving a maze may allocate, on average, which leaves
+    // room for the odd object the JVM makes for itself while the test runs.
+    private static final double BYTES_PER_MAZE = 16;
+    private static final int MAZES = 2000;
+
+    @Test
+    public void dijkstraAllocatesNothingOnceWarm(){
+        assertSolvesWithoutAllocating(SearchEngine.DIJKSTRA);
+    }
+
+    @Test
+    public void astarAllocatesNothingOnceWarm(){
+        assertSolvesWithoutAllocating(SearchEngine.ASTAR);
+    }
+
+    @Test
+    public void bidirectionalAllocatesNothingOnceWarm(){
+        assertSolvesWithoutAllocating(SearchEngine.BIDIRECTIONAL);
+    }
+
+    // assertSolvesWithoutAllocating() warms a context up on a set of mazes,
+    // then checks solving them again allocates next to nothing.
+    private static void assertSolvesWithoutAllocating(SearchEngine engine){
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue(threads.isThreadAllocatedMemorySupported(), "the JVM doesn't count allocation");
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        MazeGenerator.Shape[] shapes = MazeGenerator.Shape.values();
+        int[][] mazes = new int[8][];
+        for(int i = 0; i < mazes.length; i++){
+            mazes[i] = MazeGenerator.generate(40 + i, 60 - i, 0.1 * (i % 4),
+                    shapes[i % shapes.length], i);
+        }
+        SolverContext context = new SolverContext();
+        long warm = solve(context, engine, mazes, MAZES);
+
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        long measured = solve(context, engine, mazes, MAZES);
+        long after = threads.getThreadAllocatedBytes(thread);
+
+        assertEquals(warm, measured, "the same mazes solved differently");
+        double perMaze = (after - before) / (double) MAZES;
+        assertTrue(perMaze < BYTES_PER_MAZE, engine + " allocated " + perMaze + " bytes per maze");
+    }
+
+    // solve() loads and solves mazes in a context, round and round.
+    //
+    // Returns:
+    // long, the sum of the lengths and lives of the paths found.
+    private static long solve(SolverContext context, SearchEngine engine, int[][] mazes, int count){
+        long sum = 0;
+        for(int i = 0; i < count; i++){
+            int[] nums = mazes[i % mazes.length];
+            context.load(nums, nums.length);
+            context.solve(engine);
+            sum += context.length() * 8 + context.lives();
+        }
+        return sum;
+    }
+}